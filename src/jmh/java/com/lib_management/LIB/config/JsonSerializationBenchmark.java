@@ -0,0 +1,79 @@
+package com.lib_management.LIB.config;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * Serializing a page of books or borrows the way the list endpoints do, with the same filter setup
+ * as the application's ObjectMapper. Borrows are measured as BorrowView, which is what the API returns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter sparseWriter;
+    private List<Book> books;
+    private List<BorrowView> borrows;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().filters(SparseFieldsAdvice.ALL_FIELDS).build();
+        sparseWriter = objectMapper.writer(new SimpleFilterProvider().addFilter(SparseFieldsAdvice.FILTER_ID,
+                SimpleBeanPropertyFilter.filterOutAllExcept("id", "title")));
+
+        LocalDate today = LocalDate.now();
+        books = new ArrayList<>(size);
+        borrows = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            books.add(Book.builder().id(i).title("Dune part " + i).author("Frank Herbert")
+                    .category("Science Fiction").rentPerDay(1.5).available(i % 3 != 0).build());
+            borrows.add(new BorrowView(i, i, "Dune part " + i, "Frank Herbert", i % 100, "reader" + i % 100,
+                    today.minusDays(i % 30), today.plusDays(14 - i % 30), null, i % 30 > 14 ? (i % 30 - 14) * 1.5 : 0.0));
+        }
+    }
+
+    @Benchmark
+    public byte[] books() throws Exception {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] booksSparse() throws Exception {
+        return sparseWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] borrows() throws Exception {
+        return objectMapper.writeValueAsBytes(borrows);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One authenticated request through JwtAuthFilter: header parsing, token verification, the
+ * verification timer and populating the security context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheTokens;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(JwtBenchmark.SECRET, cacheTokens ? 10_000 : 0,
+                Duration.ofHours(1), Duration.ofDays(14));
+        filter = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/api/borrows/user/my-borrows");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("reader", "USER"));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Each real request starts with an empty context
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
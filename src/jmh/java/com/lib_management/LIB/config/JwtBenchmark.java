@@ -0,0 +1,53 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    static final String SECRET = "benchmark-secret-that-is-at-least-32-characters";
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil parsingJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = new JwtUtil(SECRET, 10_000, Duration.ofHours(1), Duration.ofDays(14));
+        // A cache size of 0 turns the verified-token cache off, so every call checks the signature and parses
+        parsingJwtUtil = new JwtUtil(SECRET, 0, Duration.ofHours(1), Duration.ofDays(14));
+        token = cachingJwtUtil.generateToken("reader", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return parsingJwtUtil.generateToken("reader", "USER");
+    }
+
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return parsingJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return cachingJwtUtil.verify(token);
+    }
+}
@@ -0,0 +1,70 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One request through RateLimitFilter on a limited route: route matching, finding the caller
+ * (a cached token lookup or the address) and the compare-and-set on the bucket. The limit is far
+ * above what the benchmark can reach, so every request is let through. Runs on several threads
+ * sharing one bucket, the contended case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean authenticated;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(JwtBenchmark.SECRET, 10_000, Duration.ofHours(1), Duration.ofDays(14));
+        filter = new RateLimitFilter(jwtUtil, new SimpleMeterRegistry(),
+                List.of("POST /auth/login=10/1m", "GET /api/books/search/**=1000000000/1s"), Duration.ofMinutes(10),
+                100_000, System::nanoTime);
+
+        request = new MockHttpServletRequest("GET", "/api/books/search/title");
+        request.setParameter("title", "dune");
+        request.setRemoteAddr("10.0.0.1");
+        if (authenticated) {
+            request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("reader", "USER"));
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse limit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
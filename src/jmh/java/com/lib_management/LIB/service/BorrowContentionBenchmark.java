@@ -0,0 +1,74 @@
+package com.lib_management.LIB.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.lib_management.LIB.LibApplication;
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.UserRepository;
+
+/**
+ * Borrow and return of one bestseller by many readers at once, on the H2 test database: the
+ * claim's conditional update, the borrow and audit inserts, and the release, all on the same book
+ * row. The title has more copies than there are threads, so every borrow finds one on the shelf
+ * and the score is how many borrow-return rounds the contended row lets through.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class BorrowContentionBenchmark {
+
+    private static final String READER = "bestseller-reader";
+
+    private ConfigurableApplicationContext context;
+    private BorrowService borrowService;
+    private Long bookId;
+
+    @Setup
+    public void setUp() {
+        // The outbox is left to fill up so its dispatcher does not compete for the database
+        context = new SpringApplicationBuilder(LibApplication.class)
+                .profiles("h2")
+                .properties("server.port=0", "library.audit.dispatch-interval=1h", "logging.level.root=WARN")
+                .run();
+        borrowService = context.getBean(BorrowService.class);
+        context.getBean(UserRepository.class).save(User.builder()
+                .username(READER).email(READER + "@example.com").password("x").role(Role.USER).build());
+        bookId = context.getBean(BookRepository.class).save(Book.builder()
+                .title("Bestseller").author("Author").category("Fiction").rentPerDay(1.0)
+                .available(true).totalCopies(100).availableCopies(100).build()).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BorrowView borrowAndReturn() {
+        BorrowView borrow = borrowService.borrowBook(READER, bookId, 7);
+        return borrowService.returnBook(borrow.id());
+    }
+}
@@ -0,0 +1,47 @@
+package com.lib_management.LIB.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The penalty returnBook charges, over a spread of due dates on both sides of the return date.
+ * The rest of returnBook is database work and is not measured here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PenaltyCalculatorBenchmark {
+
+    private final PenaltyCalculator calculator = new PenaltyCalculator();
+    private final LocalDate[] dueDates = new LocalDate[1024];
+    private LocalDate returnDate;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        returnDate = LocalDate.of(2025, 6, 1);
+        for (int i = 0; i < dueDates.length; i++) {
+            dueDates[i] = returnDate.plusDays(14 - i % 60);
+        }
+    }
+
+    @Benchmark
+    public double penaltyFor() {
+        LocalDate dueDate = dueDates[next++ & (dueDates.length - 1)];
+        return calculator.penaltyFor(dueDate, returnDate, 1.5);
+    }
+}
@@ -0,0 +1,47 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded in-process caches for the hottest single-row lookups: books by id and users by username.
+ *
+ * The caches hold immutable snapshots or detached copies, never managed entities. Writers evict
+ * entries explicitly. The manager is transaction aware, so an evict or put issued inside a
+ * transaction takes effect only once that transaction commits. That defers a reader's put as well:
+ * a reader that loaded the old row before a writer committed can still put it back after the
+ * writer's evict, and the TTL is what bounds how long such an entry is served.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${library.cache.books.max-size:10000}") long booksMaxSize,
+                                     @Value("${library.cache.books.ttl:10m}") Duration booksTtl,
+                                     @Value("${library.cache.users.max-size:10000}") long usersMaxSize,
+                                     @Value("${library.cache.users.ttl:10m}") Duration usersTtl) {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        // Only the caches registered below exist; a typo in a cache name fails instead of creating an unbounded cache
+        manager.setCacheNames(List.of());
+        manager.registerCustomCache(BOOKS, Caffeine.newBuilder()
+                .maximumSize(booksMaxSize).expireAfterWrite(booksTtl).recordStats().build());
+        manager.registerCustomCache(USERS_BY_USERNAME, Caffeine.newBuilder()
+                .maximumSize(usersMaxSize).expireAfterWrite(usersTtl).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+}
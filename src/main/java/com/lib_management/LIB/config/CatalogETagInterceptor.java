@@ -0,0 +1,107 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.lib_management.LIB.service.CatalogVersion;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET for the catalog endpoints, based on {@link CatalogVersion}.
+ *
+ * Every response carries the catalog version token (epoch and counter) as an ETag. It is a weak tag because Tomcat will not
+ * compress a response with a strong one, and If-None-Match compares weakly anyway. A request whose If-None-Match holds
+ * the current version is answered with 304 before the controller runs, so it never reaches the
+ * search index or the database. Registered in {@link WebConfig}.
+ *
+ * The tag is only attached when the body is written, and not at all when the handler read from the
+ * replica (see ReplicaRoutingDataSource): that body may predate the current version, and tagging it
+ * would let the client revalidate stale rows as current until the next change.
+ */
+@ControllerAdvice
+public class CatalogETagInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    private static final String ETAG_ATTRIBUTE = CatalogETagInterceptor.class.getName() + ".etag";
+
+    private final CatalogVersion catalogVersion;
+    private final String cacheControl;
+
+    public CatalogETagInterceptor(CatalogVersion catalogVersion,
+                                  @Value("${library.catalog.max-age:0s}") Duration maxAge) {
+        this.catalogVersion = catalogVersion;
+        // must-revalidate: once max-age is over, clients come back with If-None-Match instead of reusing stale lists
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().mustRevalidate().getHeaderValue();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        ReplicaRoutingDataSource.clearServedFromReplica();
+        // Read the version before the handler does, so a change committed meanwhile can only make the tag older
+        String etag = "W/\"" + catalogVersion.currentToken() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.clearServedFromReplica();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(ETAG_ATTRIBUTE) instanceof String etag
+                && !ReplicaRoutingDataSource.servedFromReplica()) {
+            response.getHeaders().set(HttpHeaders.ETAG, etag);
+        }
+        return body;
+    }
+
+    // If-None-Match uses weak comparison: "*", or any listed tag equal to ours once W/ prefixes are dropped
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
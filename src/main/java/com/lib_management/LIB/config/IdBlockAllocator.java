@@ -0,0 +1,138 @@
+package com.lib_management.LIB.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Reserves ids in blocks from the id_generators table (one row per entity table, created by the
+ * V2 migration).
+ *
+ * Hibernate's own table generator reserves blocks on a second connection from the main pool
+ * while the calling transaction still holds its first one. When every pooled connection belongs
+ * to a transaction waiting for the next block, nobody can reserve it and the pool deadlocks.
+ * This allocator uses a single connection of its own, so reserving a block never competes
+ * with request traffic.
+ *
+ * PooledIdGenerator looks the allocator up through the SessionFactory's bean container, so each
+ * application context takes ids from its own database.
+ */
+@Component
+public class IdBlockAllocator implements DisposableBean {
+
+    private final HikariDataSource dataSource;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public IdBlockAllocator(DataSourceProperties properties,
+                            @Value("${library.ids.block-size:50}") int blockSize) {
+        this.dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("id-allocator");
+        this.dataSource.setMaximumPoolSize(1);
+        this.dataSource.setMinimumIdle(0);
+        this.blockSize = blockSize;
+    }
+
+    public long next(String table) {
+        Block block = blocks.computeIfAbsent(table, t -> new Block());
+        synchronized (block) {
+            if (block.next == block.end) {
+                block.next = reserve(table, blockSize);
+                block.end = block.next + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids straight from the generator row, for bulk INSERT ... SELECT
+     * statements that number their rows themselves. Returns the first id of the range.
+     */
+    public long reserveRange(String table, long count) {
+        return reserve(table, count);
+    }
+
+    // Moves the generator row forward by size ids and returns the first id of the reserved range
+    private synchronized long reserve(String table, long size) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long end;
+                // The V7 migration seeds the row; a table without one starts after the ids already in it.
+                // Another instance may insert it first, in which case the update is retried
+                if (advance(connection, table, size) == 0
+                        && !insertRow(connection, table, maxId(connection, table) + 1 + size)
+                        && advance(connection, table, size) == 0) {
+                    throw new SQLException("No id_generators row for " + table);
+                }
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT next_val FROM id_generators WHERE sequence_name = ?")) {
+                    select.setString(1, table);
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        end = rs.getLong(1);
+                    }
+                }
+                connection.commit();
+                return end - size;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve ids for " + table, e);
+        }
+    }
+
+    private int advance(Connection connection, String table, long size) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_generators SET next_val = next_val + ? WHERE sequence_name = ?")) {
+            update.setLong(1, size);
+            update.setString(2, table);
+            return update.executeUpdate();
+        }
+    }
+
+    private long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // false if another instance created the row in the meantime
+    private boolean insertRow(Connection connection, String table, long nextVal) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)")) {
+            insert.setString(1, table);
+            insert.setLong(2, nextVal);
+            insert.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -22,6 +24,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @SuppressWarnings("null")
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -29,63 +34,47 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            // Extract username safely — handle token parsing exceptions explicitly
+            String token = authHeader.substring(7);
+            // Verify the token once; username and role both come from the same parse
+            Timer.Sample verification = Timer.start(meterRegistry);
+            String outcome = "error";
             try {
-                username = jwtUtil.extractUsername(token);
-            } catch (ExpiredJwtException e) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"Token has expired\"}");
-                return;
-            } catch (JwtException e) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"Invalid token\"}");
-                return;
-            } catch (Exception e) {
-                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
-                return;
-            }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                if (!jwtUtil.validateToken(token)) {
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.setContentType("application/json");
-                    response.getWriter().write("{\"error\":\"Invalid token\"}");
+                VerifiedToken verified = jwtUtil.verify(token);
+                outcome = verified.refresh() ? "refresh-token" : "valid";
+                if (verified.refresh()) {
+                    writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Refresh tokens can only be used at /auth/refresh");
                     return;
                 }
-                String role = jwtUtil.extractRole(token);
-                var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                if (verified.username() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + verified.role()));
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(verified.username(), null, authorities);
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
             } catch (ExpiredJwtException e) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"Token has expired\"}");
+                outcome = "expired";
+                writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Token has expired");
                 return;
             } catch (JwtException e) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"Invalid token\"}");
+                outcome = "invalid";
+                writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
                 return;
             } catch (Exception e) {
-                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+                writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
                 return;
+            } finally {
+                verification.stop(meterRegistry.timer("library.auth.jwt.verification", "outcome", outcome));
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
 }
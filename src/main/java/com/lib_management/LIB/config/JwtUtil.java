@@ -1,22 +1,49 @@
 package com.lib_management.LIB.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 @Component
 public class JwtUtil {
 
+    private static final String TYPE_CLAIM = "typ";
+    private static final String REFRESH_TYPE = "refresh";
+
     private final Key key;
-    private final long EXPIRATION_TIME = 1000L * 60 * 60; // 1 hour
+    private final long accessTtlMillis;
+    private final long refreshTtlMillis;
+    private final LongSupplier clock;
+
+    // JwtParser is immutable and thread-safe, so build it once instead of per call
+    private final JwtParser parser;
+
+    // Tokens whose signature we already checked, so repeat requests skip the HMAC and JSON parsing.
+    // Each entry expires at the token's own exp; null when caching is turned off.
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     // Spring will inject jwt.secret from application.properties if present
-    public JwtUtil(@Value("${jwt.secret:}") String secretProp) {
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret:}") String secretProp,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize,
+                   @Value("${jwt.access-ttl:1h}") Duration accessTtl,
+                   @Value("${jwt.refresh-ttl:14d}") Duration refreshTtl) {
+        this(secretProp, cacheMaxSize, accessTtl, refreshTtl, System::currentTimeMillis);
+    }
+
+    JwtUtil(String secretProp, int cacheMaxSize, Duration accessTtl, Duration refreshTtl, LongSupplier clock) {
         String secret = secretProp;
 
         // fallback to environment variable
@@ -30,21 +57,65 @@ public class JwtUtil {
         }
 
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.clock = clock;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).setClock(() -> new Date(clock.getAsLong())).build();
+        this.verifiedTokens = cacheMaxSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .expireAfter(Expiry.creating((String token, VerifiedToken verified) ->
+                        Duration.ofMillis(Math.max(0, verified.expiresAtMillis() - clock.getAsLong()))))
+                .build();
+        this.accessTtlMillis = accessTtl.toMillis();
+        this.refreshTtlMillis = refreshTtl.toMillis();
     }
 
     public String generateToken(String username, String role) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .setIssuedAt(new Date(clock.getAsLong()))
+                .setExpiration(new Date(clock.getAsLong() + accessTtlMillis))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Long-lived token that /auth/refresh exchanges for a new access token without a password check
+    public String generateRefreshToken(String username, String role) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("role", role)
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .setIssuedAt(new Date(clock.getAsLong()))
+                .setExpiration(new Date(clock.getAsLong() + refreshTtlMillis))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verifies the token once and returns its claims.
+     * Throws ExpiredJwtException or another JwtException when the token is not usable.
+     */
+    public VerifiedToken verify(String token) {
+        // An expired entry is gone from the cache, so the parser raises the usual ExpiredJwtException
+        VerifiedToken cached = verifiedTokens != null ? verifiedTokens.getIfPresent(token) : null;
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.get("role", String.class),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class)));
+        if (verifiedTokens != null) {
+            verifiedTokens.put(token, verified);
+        }
+        return verified;
+    }
+
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException e) {
             return false;
@@ -52,13 +123,11 @@ public class JwtUtil {
     }
 
     public String extractUsername(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return verify(token).username();
     }
 
     public String extractRole(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().get("role", String.class);
+        return verify(token).role();
     }
 
 }
@@ -0,0 +1,33 @@
+package com.lib_management.LIB.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Page size limits shared by every listing endpoint.
+ */
+@Component
+public class PaginationProperties {
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public PaginationProperties(@Value("${library.pagination.default-size:50}") int defaultSize,
+                                @Value("${library.pagination.max-size:500}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    // Falls back to the default size and never lets a client ask for more than maxSize rows
+    public int resolveSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultSize;
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    // Ids start at 1, so "no cursor" means everything after 0
+    public long resolveCursor(Long after) {
+        return after == null ? 0L : after;
+    }
+}
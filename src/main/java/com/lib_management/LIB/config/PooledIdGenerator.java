@@ -0,0 +1,33 @@
+package com.lib_management.LIB.config;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.resource.beans.spi.ManagedBeanRegistry;
+
+import com.lib_management.LIB.entity.PooledId;
+
+/**
+ * Hibernate side of {@link PooledId}: hands the id request to {@link IdBlockAllocator}.
+ * Generators belong to one SessionFactory, so the allocator is resolved from that factory's bean
+ * container (Spring's, under Spring Boot) on first use and kept.
+ */
+public class PooledIdGenerator implements IdentifierGenerator {
+
+    private final String table;
+    private volatile IdBlockAllocator allocator;
+
+    public PooledIdGenerator(PooledId config) {
+        this.table = config.value();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        IdBlockAllocator allocator = this.allocator;
+        if (allocator == null) {
+            allocator = session.getFactory().getServiceRegistry().requireService(ManagedBeanRegistry.class)
+                    .getBean(IdBlockAllocator.class).getBeanInstance();
+            this.allocator = allocator;
+        }
+        return allocator.next(table);
+    }
+}
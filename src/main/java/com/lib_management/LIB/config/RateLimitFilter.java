@@ -0,0 +1,229 @@
+package com.lib_management.LIB.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token-bucket rate limits per route, checked before JwtAuthFilter and anything behind it.
+ *
+ * Every caller gets a bucket per configured route holding {@code requests} requests and refilling
+ * evenly over {@code period}. The caller is the username of a valid bearer token (JwtUtil caches
+ * verified tokens, so this is usually a map lookup) and the client address otherwise, so a forged
+ * token cannot drain someone else's bucket. A bucket is a single AtomicLong with the time at which
+ * it will be full again (the GCRA form of a token bucket), kept in a ConcurrentHashMap and updated
+ * with compare-and-set: no request waits for a lock. Buckets that have been full for idle-timeout are
+ * dropped by a periodic sweep, which loses nothing since a new bucket starts full.
+ *
+ * Anonymous callers could otherwise grow the map without limit by changing address, so IPv6 clients
+ * are keyed by their /64 (what one host is usually given), and once max-buckets are held a new
+ * anonymous caller shares one overflow bucket per route until the sweep makes room. Users keep their
+ * own buckets; there are only as many of them as accounts.
+ *
+ * Routes are "[METHOD ]path-pattern=requests/period", e.g. {@code POST /auth/login=10/1m}. The first
+ * matching route applies; requests matching none are not limited. A rejected request gets 429 with
+ * Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private record Route(String name, HttpMethod method, PathPattern pattern, long intervalNanos, long burstNanos,
+                         Counter rejected) {
+
+        boolean matches(HttpMethod requestMethod, PathContainer path) {
+            return (method == null || method.equals(requestMethod)) && pattern.matches(path);
+        }
+    }
+
+    private final JwtUtil jwtUtil;
+    private final List<Route> routes;
+    private final long idleNanos;
+    private final LongSupplier nanoTime;
+    private final int maxBuckets;
+    private final Counter overflowed;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitFilter(JwtUtil jwtUtil, MeterRegistry registry,
+                           @Value("${library.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${library.rate-limit.routes:}") List<String> routes,
+                           @Value("${library.rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                           @Value("${library.rate-limit.max-buckets:100000}") int maxBuckets) {
+        this(jwtUtil, registry, enabled ? routes : List.of(), idleTimeout, maxBuckets, System::nanoTime);
+    }
+
+    RateLimitFilter(JwtUtil jwtUtil, MeterRegistry registry, List<String> routes, Duration idleTimeout,
+                    int maxBuckets, LongSupplier nanoTime) {
+        this.jwtUtil = jwtUtil;
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxBuckets = maxBuckets;
+        this.nanoTime = nanoTime;
+        this.routes = new ArrayList<>();
+        for (String spec : routes) {
+            if (!spec.isBlank()) {
+                this.routes.add(parse(spec.trim(), registry));
+            }
+        }
+        Gauge.builder("library.rate-limit.buckets", buckets, ConcurrentHashMap::size)
+                .description("Rate limit buckets currently held in memory")
+                .register(registry);
+        this.overflowed = Counter.builder("library.rate-limit.overflowed")
+                .description("Anonymous requests put in the shared overflow bucket because max-buckets were held")
+                .register(registry);
+    }
+
+    private static Route parse(String spec, MeterRegistry registry) {
+        int equals = spec.lastIndexOf('=');
+        int slash = spec.lastIndexOf('/');
+        if (equals < 0 || slash < equals) {
+            throw new IllegalArgumentException("Rate limit route must be \"[METHOD ]path=requests/period\": " + spec);
+        }
+        String target = spec.substring(0, equals).trim();
+        int space = target.indexOf(' ');
+        HttpMethod method = space < 0 ? null : HttpMethod.valueOf(target.substring(0, space).toUpperCase());
+        String path = space < 0 ? target : target.substring(space + 1).trim();
+        long requests = Long.parseLong(spec.substring(equals + 1, slash).trim());
+        Duration period = DurationStyle.detectAndParse(spec.substring(slash + 1).trim());
+        if (requests < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit route needs at least one request per positive period: " + spec);
+        }
+        long interval = period.toNanos() / requests;
+        Counter rejected = Counter.builder("library.rate-limit.rejected")
+                .description("Requests turned away with 429")
+                .tag("route", target)
+                .register(registry);
+        return new Route(target, method, PathPatternParser.defaultInstance.parse(path), interval,
+                interval * (requests - 1), rejected);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Route route = match(request);
+        if (route != null) {
+            long waitNanos = acquire(route, caller(request));
+            if (waitNanos > 0) {
+                route.rejected().increment();
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfter + " s\"}");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Route match(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route route : routes) {
+            if (route.matches(method, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Invalid or expired tokens fall back to the address; JwtAuthFilter rejects them right after
+    private String caller(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                String username = jwtUtil.verify(authHeader.substring(7)).username();
+                if (username != null) {
+                    return "user:" + username;
+                }
+            } catch (RuntimeException e) {
+                // Not a usable token
+            }
+        }
+        return address(request.getRemoteAddr());
+    }
+
+    // Literal addresses only, so this never does a DNS lookup
+    private static String address(String remoteAddr) {
+        if (remoteAddr.indexOf(':') >= 0) {
+            try {
+                byte[] bytes = InetAddress.getByName(remoteAddr).getAddress();
+                if (bytes.length == 16) {
+                    return "ip6:" + HexFormat.of().formatHex(bytes, 0, 8) + "/64";
+                }
+            } catch (UnknownHostException e) {
+                // Not a literal; use it as it is
+            }
+        }
+        return "ip:" + remoteAddr;
+    }
+
+    // 0 if the request may go ahead, otherwise how long until it could
+    private long acquire(Route route, String caller) {
+        long now = nanoTime.getAsLong();
+        String key = route.name() + '|' + caller;
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets && !caller.startsWith("user:")) {
+                overflowed.increment();
+                key = route.name() + "|overflow";
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long wait = start - now - route.burstNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + route.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.rate-limit.sweep-interval:1m}")
+    public void evictIdle() {
+        long idleSince = nanoTime.getAsLong() - idleNanos;
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - idleSince <= 0);
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.lib_management.LIB.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Measures how far the read replica is behind the primary.
+ *
+ * Every check stamps the replica_heartbeat row on the primary with the current time and reads the
+ * replica's copy of it; the difference is the lag. The replica is usable while that stays within
+ * max-lag, which should therefore be well above the heartbeat interval. Until the first successful
+ * check, or while the replica cannot be read, all reads go to the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String STAMP = "UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String READ = "SELECT beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private volatile long lagMillis = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry registry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+        Gauge.builder("library.replica.lag", this, m -> m.lagMillis < 0 ? Double.NaN : m.lagMillis / 1000.0)
+                .baseUnit("seconds")
+                .description("How far the read replica is behind the primary")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.datasource.replica.heartbeat-interval:1s}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update(STAMP, now);
+        } catch (DataAccessException e) {
+            log.warn("Could not stamp the replica heartbeat on the primary: {}", e.getMessage());
+        }
+
+        long lag;
+        try {
+            Long beatAt = replica.queryForObject(READ, Long.class);
+            lag = beatAt == null ? -1 : Math.max(0, now - beatAt);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the replica heartbeat: {}", e.getMessage());
+            lag = -1;
+        }
+
+        boolean nowUsable = lag >= 0 && lag <= maxLagMillis;
+        if (nowUsable != usable) {
+            if (nowUsable) {
+                log.info("Read replica caught up ({} ms behind), routing replica reads to it", lag);
+            } else if (lag < 0) {
+                log.warn("Read replica heartbeat unavailable, routing all reads to the primary");
+            } else {
+                log.warn("Read replica {} ms behind, routing all reads to the primary", lag);
+            }
+        }
+        lagMillis = lag;
+        usable = nowUsable;
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+}
@@ -0,0 +1,22 @@
+package com.lib_management.LIB.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * A read that may be served by the read replica. The method runs in a read-only transaction whose
+ * statements go to the replica while one is configured and no further behind than
+ * library.datasource.replica.max-lag, and to the primary otherwise.
+ *
+ * Only annotated methods are routed: a read-only transaction started anywhere else, such as the
+ * one Spring Data opens around a findById that precedes a write, stays on the primary.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Transactional(readOnly = true)
+public @interface ReplicaRead {
+}
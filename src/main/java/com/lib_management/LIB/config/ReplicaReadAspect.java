@@ -0,0 +1,22 @@
+package com.lib_management.LIB.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Marks the thread for the duration of a @ReplicaRead call so ReplicaRoutingDataSource can see it
+@Aspect
+@Component
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.lib_management.LIB.config.ReplicaRead)")
+    public Object routeToReplica(ProceedingJoinPoint call) throws Throwable {
+        boolean nested = ReplicaRoutingDataSource.enterReplicaRead();
+        try {
+            return call.proceed();
+        } finally {
+            ReplicaRoutingDataSource.exitReplicaRead(nested);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.lib_management.LIB.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends a connection to the replica when it is taken inside a @ReplicaRead method, the current
+ * transaction is read-only and the replica is caught up; every other connection goes to the primary.
+ *
+ * The lookup runs when a connection is taken, so this must sit behind a LazyConnectionDataSourceProxy:
+ * the transaction manager asks for its connection before the read-only flag is set, and the proxy
+ * only takes the real one at the first statement.
+ *
+ * A thread that was handed a replica connection is remembered until {@link #clearServedFromReplica},
+ * so the web layer can tell that a response may be behind the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> SERVED_FROM_REPLICA = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replicaRead = Boolean.TRUE.equals(REPLICA_READ.get())
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (replicaRead && lagMonitor.isReplicaUsable()) {
+            SERVED_FROM_REPLICA.set(Boolean.TRUE);
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    static boolean servedFromReplica() {
+        return Boolean.TRUE.equals(SERVED_FROM_REPLICA.get());
+    }
+
+    static void clearServedFromReplica() {
+        SERVED_FROM_REPLICA.remove();
+    }
+
+    // Returns whether the thread was already inside a replica read, to be passed back to exitReplicaRead
+    static boolean enterReplicaRead() {
+        boolean nested = Boolean.TRUE.equals(REPLICA_READ.get());
+        REPLICA_READ.set(Boolean.TRUE);
+        return nested;
+    }
+
+    static void exitReplicaRead(boolean nested) {
+        if (!nested) {
+            REPLICA_READ.remove();
+        }
+    }
+}
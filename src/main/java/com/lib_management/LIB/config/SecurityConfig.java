@@ -1,5 +1,7 @@
 package com.lib_management.LIB.config;
 
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +27,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
@@ -35,7 +40,9 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
     return http.csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
     .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-    .requestMatchers("/auth/login", "/api/users/register").permitAll()
+    // Async dispatches (streamed exports) finish a request that was already authorized
+    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+    .requestMatchers("/auth/login", "/auth/refresh", "/api/users/register").permitAll()
     // Allow anyone to view/search books (GET)
     .requestMatchers(HttpMethod.GET, "/api/books/**").permitAll()
     // Admin-only book management
@@ -46,11 +53,17 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
     // User management admin-only
     .requestMatchers("/api/users/all").hasRole("ADMIN")
     .requestMatchers("/api/users/admin/**").hasRole("ADMIN")
+    .requestMatchers("/api/admin/**").hasRole("ADMIN")
+    // Health for load balancers; metrics and the Prometheus scrape are admin-only
+    .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+    .requestMatchers("/actuator/**").hasRole("ADMIN")
     .anyRequest().authenticated()
 )
 
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Floods are turned away before any token, password or database work
+            .addFilterBefore(rateLimitFilter, JwtAuthFilter.class)
             .build();
 }
 
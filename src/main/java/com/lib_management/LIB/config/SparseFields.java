@@ -0,0 +1,16 @@
+package com.lib_management.LIB.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint whose response honours {@code ?fields=a,b,c}: only the listed properties of
+ * {@link #value()} are written. The type must carry {@code @JsonFilter(SparseFieldsAdvice.FILTER_ID)}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SparseFields {
+    Class<?> value();
+}
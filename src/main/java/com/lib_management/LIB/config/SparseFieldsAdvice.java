@@ -0,0 +1,102 @@
+package com.lib_management.LIB.config;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Applies {@code ?fields=} to endpoints marked {@link SparseFields}.
+ *
+ * Jackson builds and caches the serializer for each type once; the selection is a property filter
+ * on top of it. Filters are built once per distinct field set and reused, and the allowed names
+ * per type are read once from Jackson's own view of the type, so a request only costs a map lookup.
+ */
+@ControllerAdvice
+public class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FILTER_ID = "fields";
+
+    // Default for every other response: annotated types serialize all their properties
+    public static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    private static final int MAX_CACHED_SELECTIONS = 256;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, Set<String>> propertiesByType = new ConcurrentHashMap<>();
+    private final Map<String, FilterProvider> filters = new ConcurrentHashMap<>();
+
+    public SparseFieldsAdvice(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(SparseFields.class) && super.supports(returnType, converterType);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(FILTER_ID);
+        if (fields == null || fields.isBlank()) {
+            return;
+        }
+        Class<?> type = returnType.getMethodAnnotation(SparseFields.class).value();
+        Set<String> selected = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        Set<String> known = propertiesByType.computeIfAbsent(type, this::propertiesOf);
+        Set<String> unknown = selected.stream().filter(name -> !known.contains(name))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!unknown.isEmpty()) {
+            throw new RuntimeException("Unknown fields for " + type.getSimpleName() + ": " + unknown
+                    + " (available: " + new TreeSet<>(known) + ")");
+        }
+        bodyContainer.setFilters(filterFor(selected));
+    }
+
+    private FilterProvider filterFor(Set<String> selected) {
+        String key = String.join(",", selected);
+        FilterProvider filter = filters.get(key);
+        if (filter == null) {
+            filter = new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(selected));
+            // Selections come from clients; stop remembering new ones rather than grow without bound
+            if (filters.size() < MAX_CACHED_SELECTIONS) {
+                filters.put(key, filter);
+            }
+        }
+        return filter;
+    }
+
+    private Set<String> propertiesOf(Class<?> type) {
+        return objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type))
+                .findProperties().stream()
+                .filter(BeanPropertyDefinition::couldSerialize)
+                .map(BeanPropertyDefinition::getName)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,8 @@
+package com.lib_management.LIB.config;
+
+/**
+ * The claims the application needs from a JWT whose signature has already been checked.
+ * {@code refresh} marks a long-lived token that may only be exchanged for a new access token.
+ */
+public record VerifiedToken(String username, String role, long expiresAtMillis, boolean refresh) {
+}
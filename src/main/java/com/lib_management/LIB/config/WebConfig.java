@@ -1,7 +1,10 @@
 package com.lib_management.LIB.config;
 
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -12,6 +15,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final CatalogETagInterceptor catalogETagInterceptor;
+
+    public WebConfig(CatalogETagInterceptor catalogETagInterceptor) {
+        this.catalogETagInterceptor = catalogETagInterceptor;
+    }
+
     @SuppressWarnings("null")
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -21,4 +30,18 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*") // Allow all headers in the requests
                 .allowCredentials(true); // Allow sending of cookies and authentication headers
     }
+
+    // Types marked for ?fields= carry @JsonFilter; everywhere else they must serialize in full
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsDefaultFilter() {
+        return builder -> builder.filters(SparseFieldsAdvice.ALL_FIELDS);
+    }
+
+    // Catalog reads (list, available, search, by id) get ETags; admin exports, import status and the event stream do not
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogETagInterceptor)
+                .addPathPatterns("/api/books", "/api/books/**")
+                .excludePathPatterns("/api/books/admin/**", "/api/books/events");
+    }
 }
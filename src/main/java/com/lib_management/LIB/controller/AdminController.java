@@ -0,0 +1,24 @@
+package com.lib_management.LIB.controller;
+
+import com.lib_management.LIB.dto.CacheStatistics;
+import com.lib_management.LIB.service.CacheStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    // Hit/miss counters of the book and user caches
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/caches")
+    public List<CacheStatistics> getCacheStats() {
+        return cacheStatsService.getStats();
+    }
+}
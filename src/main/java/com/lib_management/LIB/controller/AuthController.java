@@ -2,15 +2,22 @@ package com.lib_management.LIB.controller;
 
 
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import com.lib_management.LIB.config.JwtUtil;
-import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.config.VerifiedToken;
+import com.lib_management.LIB.dto.UserAccount;
 import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.service.LoginThrottledException;
+import com.lib_management.LIB.service.PasswordVerifier;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.annotation.Timed;
+import io.jsonwebtoken.JwtException;
 
 import java.util.Map;
 
@@ -20,15 +27,16 @@ public class AuthController {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerifier passwordVerifier;
 
-    public AuthController(JwtUtil jwtUtil, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthController(JwtUtil jwtUtil, UserRepository userRepository, PasswordVerifier passwordVerifier) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordVerifier = passwordVerifier;
     }
 
     @PostMapping("/login")
+    @Timed("library.auth.login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
         String username = loginRequest.get("username");
         String password = loginRequest.get("password");
@@ -38,21 +46,55 @@ public class AuthController {
         }
 
         try {
-            User user = userRepository.findByUsername(username)
+            UserAccount user = userRepository.findAccountByUsername(username)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-            if (!passwordEncoder.matches(password, user.getPassword())) {
+            if (!passwordVerifier.matches(password, user.password())) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
             }
 
-            String token = jwtUtil.generateToken(username, user.getRole().name());
+            String token = jwtUtil.generateToken(username, user.role().name());
+            String refreshToken = jwtUtil.generateRefreshToken(username, user.role().name());
 
-            return ResponseEntity.ok(Map.of("token", token));
+            return ResponseEntity.ok(Map.of("token", token, "refreshToken", refreshToken));
         } catch (UsernameNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Login failed: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Exchanges a refresh token for a new access token. Only a signature check and a (cached) user
+     * lookup, no BCrypt, so clients can renew hourly tokens without logging in again. The role is
+     * read from the user record, so role changes and deleted users take effect on the next refresh.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> refreshRequest) {
+        String refreshToken = refreshRequest.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Refresh token cannot be empty"));
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(refreshToken);
+        } catch (ExpiredJwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Refresh token has expired"));
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid refresh token"));
+        }
+        if (!verified.refresh()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not a refresh token"));
+        }
+
+        return userRepository.findAccountByUsername(verified.username())
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(
+                        Map.of("token", jwtUtil.generateToken(user.username(), user.role().name()))))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not found")));
+    }
+}
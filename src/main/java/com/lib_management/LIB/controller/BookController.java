@@ -2,22 +2,70 @@ package com.lib_management.LIB.controller;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import com.lib_management.LIB.config.SparseFields;
+import com.lib_management.LIB.dto.CatalogChanges;
+import com.lib_management.LIB.dto.CategoryFacet;
+import com.lib_management.LIB.dto.CursorPage;
+import com.lib_management.LIB.dto.ExportFormat;
+import com.lib_management.LIB.dto.ImportStatus;
 import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.service.BookImportService;
 import com.lib_management.LIB.service.BookService;
+import com.lib_management.LIB.service.CatalogEventBroadcaster;
+import com.lib_management.LIB.service.ExportService;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
     private final BookService bookService;
+    private final ExportService exportService;
+    private final BookImportService bookImportService;
+    private final CatalogEventBroadcaster catalogEvents;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ExportService exportService, BookImportService bookImportService,
+                          CatalogEventBroadcaster catalogEvents) {
         this.bookService = bookService;
+        this.exportService = exportService;
+        this.bookImportService = bookImportService;
+        this.catalogEvents = catalogEvents;
+    }
+
+    // Delta sync: what changed after ?since=<version token>, or a full snapshot if that is too far back
+    @GetMapping("/changes")
+    public ResponseEntity<StreamingResponseBody> getChanges(@RequestParam(required = false) String since) {
+        Optional<CatalogChanges> delta = bookService.getChangesSince(since);
+        String version = delta.map(CatalogChanges::version).orElseGet(bookService::snapshotVersion);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag("W/\"" + version + "\"")
+                .body(delta.map(exportService::catalogDelta).orElseGet(() -> exportService.catalogSnapshot(version)));
+    }
+
+    // Per-category total and available counts, from memory
+    @GetMapping("/facets")
+    public List<CategoryFacet> getFacets() {
+        return bookService.getCategoryFacets();
+    }
+
+    // Server-Sent Events: availability flips and catalog edits as they commit (see CatalogEventBroadcaster)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> catalogEvents() {
+        return catalogEvents.subscribe()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5").build());
     }
 
  @GetMapping("/{id}")
@@ -27,8 +75,21 @@ public class BookController {
     }
 
     @GetMapping
-    public List<Book> getAllBooks(){
-        return bookService.getAllBooks();
+    @SparseFields(Book.class)
+    public CursorPage<Book> getAllBooks(@RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Integer size){
+        return bookService.getAllBooks(after, size);
+    }
+
+    // Whole catalog, streamed as it is read (?format=ndjson or csv)
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.attachment("books"))
+                .body(exportService.exportBooks(exportFormat));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -37,6 +98,20 @@ public class BookController {
         return bookService.addBook(book);
     }
 
+    // Bulk CSV import; runs in the background, poll the returned job for progress and rejected rows
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/admin/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportStatus> importBooks(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.accepted().body(bookImportService.submit(file));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/import/{jobId}")
+    public ImportStatus getImportStatus(@PathVariable String jobId) {
+        return bookImportService.getStatus(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job not found: " + jobId));
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/admin/{id}")
     public Book updateBook(@PathVariable Long id, @RequestBody Book bookDetails){
@@ -47,6 +122,13 @@ public class BookController {
     }
 
 
+    // Copies are set on their own: a book edit never touches the counters borrowing moves
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/admin/{id}/copies")
+    public Book setCopies(@PathVariable Long id, @RequestParam int total){
+        return bookService.setCopies(id, total);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/admin/{id}")
     public String deleteBook(@PathVariable Long id){
@@ -63,6 +145,7 @@ public class BookController {
     }
 
     @GetMapping("/search/title")
+@SparseFields(Book.class)
 public ResponseEntity<List<Book>> searchByTitle(@RequestParam(required = false) String title){
     if (title == null || title.isBlank()) {
         return ResponseEntity.badRequest().body(Collections.emptyList());
@@ -70,7 +153,24 @@ public ResponseEntity<List<Book>> searchByTitle(@RequestParam(required = false)
     return ResponseEntity.ok(bookService.searchByTitle(title));
 }
 
+@GetMapping("/search")
+@SparseFields(Book.class)
+public ResponseEntity<?> search(@RequestParam(required = false) String q,
+                                @RequestParam(required = false) String title,
+                                @RequestParam(required = false) String author,
+                                @RequestParam(required = false) String category,
+                                @RequestParam(defaultValue = "false") boolean facets){
+    if (isBlank(q) && isBlank(title) && isBlank(author) && isBlank(category)) {
+        return ResponseEntity.badRequest().body(Collections.emptyList());
+    }
+    if (facets) {
+        return ResponseEntity.ok(bookService.searchWithFacets(q, title, author, category));
+    }
+    return ResponseEntity.ok(bookService.search(q, title, author, category));
+}
+
 @GetMapping("/search/category")
+@SparseFields(Book.class)
 public ResponseEntity<List<Book>> searchByCategory(@RequestParam(required = false) String category){
     if (category == null || category.isBlank()) {
         return ResponseEntity.badRequest().body(Collections.emptyList());
@@ -80,8 +180,14 @@ public ResponseEntity<List<Book>> searchByCategory(@RequestParam(required = fals
 
 
     @GetMapping("/available")
-    public List<Book> getAvailableBooks(){
-        return bookService.getAvailableBooks();
+    @SparseFields(Book.class)
+    public CursorPage<Book> getAvailableBooks(@RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer size){
+        return bookService.getAvailableBooks(after, size);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
 
@@ -1,14 +1,25 @@
 package com.lib_management.LIB.controller;
 
 import org.springframework.security.core.Authentication;
-import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.config.SparseFields;
+import com.lib_management.LIB.dto.BatchBorrowRequest;
+import com.lib_management.LIB.dto.BatchReturnRequest;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.dto.CursorPage;
+import com.lib_management.LIB.dto.ExportFormat;
+import com.lib_management.LIB.service.ExportService;
 import com.lib_management.LIB.service.BorrowService;
+import com.lib_management.LIB.service.PenaltyAccrualService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/borrows")
@@ -17,36 +28,75 @@ public class BorrowController {
     @Autowired
     private BorrowService borrowService;
 
+    @Autowired
+    private PenaltyAccrualService penaltyAccrualService;
+
+    @Autowired
+    private ExportService exportService;
+
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Borrow>> getAllBorrows() {
-        return ResponseEntity.ok(borrowService.getAllBorrows());
+    @SparseFields(BorrowView.class)
+    public ResponseEntity<CursorPage<BorrowView>> getAllBorrows(@RequestParam(required = false) Long after,
+                                                            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(borrowService.getAllBorrows(after, size));
+    }
+
+    // Full borrow history, streamed as it is read (?format=ndjson or csv)
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBorrows(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.attachment("borrows"))
+                .body(exportService.exportBorrows(exportFormat));
     }
 
     @GetMapping("/user/my-borrows")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<Borrow>> getUserBorrows(Authentication authentication) {
+    @SparseFields(BorrowView.class)
+    public ResponseEntity<List<BorrowView>> getUserBorrows(Authentication authentication) {
         String username = authentication.getName();
         return ResponseEntity.ok(borrowService.getUserBorrows(username));
     }
 
 @PostMapping("/user/borrow")
 @PreAuthorize("hasRole('USER')")
-public ResponseEntity<Borrow> borrowBook(@RequestParam Long bookId, @RequestParam int days, Authentication authentication) {
+public ResponseEntity<BorrowView> borrowBook(@RequestParam Long bookId, @RequestParam int days, Authentication authentication) {
     String username = authentication.getName(); // Get username from authenticated user
     return ResponseEntity.ok(borrowService.borrowBook(username, bookId, days));
 }
 
+    @PostMapping("/user/borrow/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<BorrowView>> borrowBooks(@RequestBody BatchBorrowRequest request, Authentication authentication) {
+        return ResponseEntity.ok(borrowService.borrowBooks(authentication.getName(), request.bookIds(), request.days()));
+    }
+
+    @PostMapping("/user/return/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<BorrowView>> returnBooks(@RequestBody BatchReturnRequest request) {
+        return ResponseEntity.ok(borrowService.returnBooks(request.borrowIds()));
+    }
+
     @PostMapping("/user/return/{borrowId}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Borrow> returnBook(@PathVariable Long borrowId) {
+    public ResponseEntity<BorrowView> returnBook(@PathVariable Long borrowId) {
         return ResponseEntity.ok(borrowService.returnBook(borrowId));
     }
 
+    // Runs (or resumes) today's penalty accrual now instead of waiting for the nightly schedule
+    @PostMapping("/admin/penalties/accrue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> accruePenalties() {
+        return ResponseEntity.ok(Map.of("updated", penaltyAccrualService.accrue(LocalDate.now())));
+    }
+
     @DeleteMapping("/admin/{borrowId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Borrow> deleteBorrow(@PathVariable Long borrowId) {
-        Borrow borrow = borrowService.DeleteBorrow(borrowId);
+    public ResponseEntity<BorrowView> deleteBorrow(@PathVariable Long borrowId) {
+        BorrowView borrow = borrowService.DeleteBorrow(borrowId);
         if (borrow == null) {
             return ResponseEntity.notFound().build();
         }
@@ -1,12 +1,17 @@
 package com.lib_management.LIB.controller;
 
+import com.lib_management.LIB.config.SparseFields;
+import com.lib_management.LIB.dto.CursorPage;
+import com.lib_management.LIB.dto.ExportFormat;
 import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.service.ExportService;
 import com.lib_management.LIB.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/users")
@@ -15,6 +20,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ExportService exportService;
+
     // ✅ Register (open for all)
     @PostMapping("/register")
     public User registerUser(@RequestBody User user) {
@@ -24,8 +32,21 @@ public class UserController {
     // ✅ Get all users (admin only)
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    @SparseFields(User.class)
+    public CursorPage<User> getAllUsers(@RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Integer size) {
+        return userService.getAllUsers(after, size);
+    }
+
+    // All users without password hashes, streamed as they are read (?format=ndjson or csv)
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.attachment("users"))
+                .body(exportService.exportUsers(exportFormat));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
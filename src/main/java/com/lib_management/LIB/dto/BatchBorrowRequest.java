@@ -0,0 +1,9 @@
+package com.lib_management.LIB.dto;
+
+import java.util.List;
+
+/**
+ * A patron's whole cart, borrowed in one transaction.
+ */
+public record BatchBorrowRequest(List<Long> bookIds, int days) {
+}
@@ -0,0 +1,9 @@
+package com.lib_management.LIB.dto;
+
+import java.util.List;
+
+/**
+ * Borrow records returned together in one transaction.
+ */
+public record BatchReturnRequest(List<Long> borrowIds) {
+}
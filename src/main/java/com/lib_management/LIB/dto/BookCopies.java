@@ -0,0 +1,15 @@
+package com.lib_management.LIB.dto;
+
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * A book's copy counters and row version as they are in the database, read back after a conditional update.
+ */
+public record BookCopies(Long id, int totalCopies, int availableCopies, Long version) {
+
+    // The book as it is now: the given state with these counters
+    public Book applyTo(Book book) {
+        return book.toBuilder().totalCopies(totalCopies).availableCopies(availableCopies)
+                .available(availableCopies > 0).version(version).build();
+    }
+}
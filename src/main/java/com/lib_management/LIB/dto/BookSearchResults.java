@@ -0,0 +1,12 @@
+package com.lib_management.LIB.dto;
+
+import java.util.List;
+
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * Search results with per-category counts over the books found, returned by
+ * GET /api/books/search when {@code facets=true}.
+ */
+public record BookSearchResults(List<Book> books, List<CategoryFacet> facets) {
+}
@@ -0,0 +1,32 @@
+package com.lib_management.LIB.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.lib_management.LIB.config.SparseFieldsAdvice;
+import com.lib_management.LIB.entity.Borrow;
+
+import java.time.LocalDate;
+
+/**
+ * What the borrow endpoints return: the borrow plus the few book and user columns the UI shows.
+ * Listings build it straight from a constructor-expression query.
+ */
+@JsonFilter(SparseFieldsAdvice.FILTER_ID)
+public record BorrowView(Long id,
+                         Long bookId,
+                         String bookTitle,
+                         String bookAuthor,
+                         Long userId,
+                         String username,
+                         LocalDate borrowDate,
+                         LocalDate dueDate,
+                         LocalDate returnDate,
+                         double penalty) {
+
+    // For a borrow whose book and user are already loaded
+    public static BorrowView from(Borrow borrow) {
+        return new BorrowView(borrow.getId(),
+                borrow.getBook().getId(), borrow.getBook().getTitle(), borrow.getBook().getAuthor(),
+                borrow.getUser().getId(), borrow.getUser().getUsername(),
+                borrow.getBorrowDate(), borrow.getDueDate(), borrow.getReturnDate(), borrow.getPenalty());
+    }
+}
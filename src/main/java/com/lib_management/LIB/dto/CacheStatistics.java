@@ -0,0 +1,7 @@
+package com.lib_management.LIB.dto;
+
+/**
+ * Counters of one in-process cache since startup.
+ */
+public record CacheStatistics(String name, long size, long hits, long misses, double hitRate, long evictions) {
+}
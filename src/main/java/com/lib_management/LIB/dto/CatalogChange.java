@@ -0,0 +1,59 @@
+package com.lib_management.LIB.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+
+/**
+ * One entry of the catalog change log, and what the delta sync endpoint returns per book:
+ * <ul>
+ *   <li>{@code availability}: only the copies on the shelf changed ({@code available} and
+ *   {@code availableCopies} are set)</li>
+ *   <li>{@code book}: the book was added or edited ({@code book} holds all of it)</li>
+ *   <li>{@code deleted}: the book is gone</li>
+ * </ul>
+ * {@code book} is kept for availability changes too, so a book's changes can be merged into one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CatalogChange(long version, Type type, long id, Boolean available, Integer availableCopies, Book book) {
+
+    public enum Type {
+        availability,
+        book,
+        deleted
+    }
+
+    public static CatalogChange from(CatalogChangedEvent event) {
+        BookChangedEvent change = event.change();
+        if (change.type() == BookChangedEvent.ChangeType.DELETED) {
+            return new CatalogChange(event.version(), Type.deleted, change.bookId(), null, null, null);
+        }
+        // A copy: the event may carry a managed entity that its session is still free to change
+        Book current = change.current().toBuilder().build();
+        if (change.type() == BookChangedEvent.ChangeType.UPDATED
+                && change.previous().toBuilder().available(current.isAvailable())
+                        .availableCopies(current.getAvailableCopies()).version(current.getVersion()).build()
+                        .equals(current)) {
+            return new CatalogChange(event.version(), Type.availability, current.getId(), current.isAvailable(),
+                    current.getAvailableCopies(), current);
+        }
+        return new CatalogChange(event.version(), Type.book, current.getId(), null, null, current);
+    }
+
+    /**
+     * This change combined with an earlier one for the same book: the state is this one's, and it
+     * only stays an availability change if both were.
+     */
+    public CatalogChange after(CatalogChange earlier) {
+        if (type == Type.availability && earlier.type != Type.availability) {
+            return new CatalogChange(version, Type.book, id, null, null, book);
+        }
+        return this;
+    }
+
+    // What goes on the wire for an availability change: the counter and flag, not the whole book
+    public CatalogChange withoutBookForAvailability() {
+        return type == Type.availability ? new CatalogChange(version, type, id, available, availableCopies, null) : this;
+    }
+}
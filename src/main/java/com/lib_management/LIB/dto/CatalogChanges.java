@@ -0,0 +1,20 @@
+package com.lib_management.LIB.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Response of GET /api/books/changes. A delta lists, per changed book, its latest change after the
+ * client's version. A snapshot ({@code snapshot = true}) instead holds every book and replaces the
+ * client's copy; it is streamed by ExportService#catalogSnapshot in this same shape, so this record
+ * only ever carries deltas. Either way the client stores {@code version} (an "epoch-counter" token,
+ * see CatalogVersion) and passes it as {@code since} next time.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CatalogChanges(String version, boolean snapshot, List<CatalogChange> changes) {
+
+    public static CatalogChanges delta(String version, List<CatalogChange> changes) {
+        return new CatalogChanges(version, false, changes);
+    }
+}
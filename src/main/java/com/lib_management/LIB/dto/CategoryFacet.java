@@ -0,0 +1,7 @@
+package com.lib_management.LIB.dto;
+
+/**
+ * Number of books in a category, and how many of them can be borrowed right now.
+ */
+public record CategoryFacet(String category, long total, long available) {
+}
@@ -0,0 +1,24 @@
+package com.lib_management.LIB.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * {@code nextCursor} is the id to pass as {@code after} for the next page,
+ * or null when this is the last page.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+
+    /**
+     * Builds a page from a query that fetched {@code size + 1} rows ordered by id.
+     * The extra row only tells us that another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, idOf.apply(items.get(size - 1)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.lib_management.LIB.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats the export endpoints can stream: one JSON object per line, or CSV with a header row.
+ */
+public enum ExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String attachment(String name) {
+        return "attachment; filename=\"" + name + "." + extension + "\"";
+    }
+
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new RuntimeException("Unsupported export format: " + value);
+    }
+}
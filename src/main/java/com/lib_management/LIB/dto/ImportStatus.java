@@ -0,0 +1,29 @@
+package com.lib_management.LIB.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a bulk book import. {@code errors} lists the first rejected rows (data rows are
+ * numbered from 1, the header excluded); {@code rejected} counts all of them.
+ */
+public record ImportStatus(String jobId,
+                           State state,
+                           long rowsRead,
+                           long imported,
+                           long rejected,
+                           List<RowError> errors,
+                           String failure,
+                           Instant startedAt,
+                           Instant finishedAt) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record RowError(long row, String message) {
+    }
+}
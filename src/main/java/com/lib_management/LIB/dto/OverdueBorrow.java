@@ -0,0 +1,9 @@
+package com.lib_management.LIB.dto;
+
+import java.time.LocalDate;
+
+/**
+ * The three columns penalty accrual needs, read without loading Borrow entities.
+ */
+public record OverdueBorrow(Long id, LocalDate dueDate, double rentPerDay) {
+}
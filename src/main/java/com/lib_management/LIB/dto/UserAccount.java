@@ -0,0 +1,16 @@
+package com.lib_management.LIB.dto;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.User;
+
+/**
+ * The columns login, token refresh and borrowing need from a user, as an immutable snapshot that can
+ * be shared through the users cache.
+ */
+public record UserAccount(Long id, String username, String password, Role role) {
+
+    // A detached User carrying only the id and username, for use as a borrow's foreign key
+    public User toReference() {
+        return User.builder().id(id).username(username).role(role).build();
+    }
+}
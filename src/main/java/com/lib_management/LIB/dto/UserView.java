@@ -0,0 +1,9 @@
+package com.lib_management.LIB.dto;
+
+import com.lib_management.LIB.Enum.Role;
+
+/**
+ * A user without the password hash, for exports.
+ */
+public record UserView(Long id, String username, String email, Role role) {
+}
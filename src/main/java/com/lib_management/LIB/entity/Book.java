@@ -1,5 +1,9 @@
 package com.lib_management.LIB.entity;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.lib_management.LIB.config.SparseFieldsAdvice;
+
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,10 +12,12 @@ import lombok.*;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
+@JsonFilter(SparseFieldsAdvice.FILTER_ID)
 public class Book {
+    // Block-allocated ids (IDENTITY would force one INSERT round trip per row and disable JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("books")
     private Long id;
 
     @Column(nullable = false)
@@ -25,7 +31,24 @@ public class Book {
 
     private double rentPerDay;
 
-    @Column(nullable = false)
+    // Derived: at least one copy is on the shelf. Like the counters it is written only by the
+    // conditional updates in BookRepository, never by an entity update
+    @Column(nullable = false, updatable = false)
     private boolean available;
 
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private int totalCopies = 1;
+
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int availableCopies = 1;
+
+    // Bumped by every write to the row: entity updates through this annotation, the conditional
+    // updates in BookRepository by hand. Tells listeners which of two changes to a book is newer
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
 }
@@ -11,15 +11,17 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor
 public class Borrow {
+    // Block-allocated ids (IDENTITY would force one INSERT round trip per row and disable JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("borrow")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lazy: queries that need the book or user join them explicitly
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
@@ -33,4 +35,9 @@ public class Borrow {
     private LocalDate returnDate;
 
     private double penalty;
+
+    // Of two concurrent returns or deletes of the same borrow only one commits; the other rolls
+    // back, copy release included, so a copy is never put back twice
+    @Version
+    private Long version;
 }
\ No newline at end of file
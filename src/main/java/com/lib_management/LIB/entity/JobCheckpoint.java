@@ -0,0 +1,30 @@
+package com.lib_management.LIB.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a restartable batch job: the last row id it finished for a given run date.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    private LocalDate runDate;
+
+    private Long lastId;
+
+    private boolean completed;
+}
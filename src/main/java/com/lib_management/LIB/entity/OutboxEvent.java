@@ -0,0 +1,53 @@
+package com.lib_management.LIB.entity;
+
+import java.time.LocalDateTime;
+
+import com.lib_management.LIB.event.BorrowAuditEvent;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A borrow event waiting in the outbox for the dispatcher. Ids and foreign keys are plain values
+ * so writing one never loads or locks anything.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    // Block-allocated like Borrow, so the insert joins the flush at commit instead of running on save
+    @Id
+    @PooledId("outbox_events")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private BorrowAuditEvent.Type type;
+
+    private Long borrowId;
+
+    private Long bookId;
+
+    private Long userId;
+
+    private double penalty;
+
+    private LocalDateTime occurredAt;
+
+    public static OutboxEvent of(BorrowAuditEvent.Type type, Borrow borrow, LocalDateTime occurredAt) {
+        return new OutboxEvent(null, type, borrow.getId(), borrow.getBook().getId(), borrow.getUser().getId(),
+                borrow.getPenalty(), occurredAt);
+    }
+
+    public BorrowAuditEvent toAuditEvent() {
+        return new BorrowAuditEvent(id, type, borrowId, bookId, userId, penalty, occurredAt);
+    }
+}
@@ -0,0 +1,22 @@
+package com.lib_management.LIB.entity;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import com.lib_management.LIB.config.PooledIdGenerator;
+
+/**
+ * Assigns ids from blocks reserved in the id_generators table instead of AUTO_INCREMENT,
+ * so Hibernate knows the id before the INSERT and can batch inserts.
+ * The value is the table name, which is also the generator row name.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledId {
+    String value();
+}
@@ -1,6 +1,8 @@
 package com.lib_management.LIB.entity;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.config.SparseFieldsAdvice;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -22,6 +24,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonFilter(SparseFieldsAdvice.FILTER_ID)
 public class User {
 
     @Id
@@ -0,0 +1,38 @@
+package com.lib_management.LIB.event;
+
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * Published by the services whenever a book row changes, including availability flips
+ * caused by borrowing and returning. {@code previous} is null for additions and
+ * {@code current} is null for deletions.
+ *
+ * Listeners that keep derived state (search index, counts, ...) should listen to the
+ * {@link CatalogChangedEvent} that CatalogVersion republishes after the commit instead: those come
+ * one at a time in version order, and a change that lost the race against a newer one for the same
+ * book (see Book.version) is not republished.
+ */
+public record BookChangedEvent(ChangeType type, Book previous, Book current) {
+
+    public enum ChangeType {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent added(Book book) {
+        return new BookChangedEvent(ChangeType.ADDED, null, book);
+    }
+
+    public static BookChangedEvent updated(Book previous, Book current) {
+        return new BookChangedEvent(ChangeType.UPDATED, previous, current);
+    }
+
+    public static BookChangedEvent deleted(Book book) {
+        return new BookChangedEvent(ChangeType.DELETED, book, null);
+    }
+
+    public Long bookId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+}
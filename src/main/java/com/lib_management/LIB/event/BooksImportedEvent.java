@@ -0,0 +1,13 @@
+package com.lib_management.LIB.event;
+
+import java.util.List;
+
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * Published by BookImportService once per chunk of books it inserts, in the chunk's transaction,
+ * instead of a {@link BookChangedEvent} per row. Like those it only takes effect after the commit,
+ * through CatalogVersion, which republishes it as a {@link CatalogResetEvent}.
+ */
+public record BooksImportedEvent(List<Book> books) {
+}
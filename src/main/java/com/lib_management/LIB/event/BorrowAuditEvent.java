@@ -0,0 +1,18 @@
+package com.lib_management.LIB.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * A borrow, return or deletion as recorded in the audit trail. {@code id} is the outbox event id:
+ * delivery is at least once, so listeners should treat an id they have already seen as a repeat.
+ * {@code penalty} is the borrow's penalty at the time of the event.
+ */
+public record BorrowAuditEvent(long id, Type type, long borrowId, long bookId, long userId,
+                               double penalty, LocalDateTime occurredAt) {
+
+    public enum Type {
+        BORROWED,
+        RETURNED,
+        DELETED
+    }
+}
@@ -0,0 +1,14 @@
+package com.lib_management.LIB.event;
+
+import java.util.List;
+
+/**
+ * Downstream consumer of the borrow audit trail. Every bean implementing this receives each batch
+ * the outbox dispatcher drains, in event id order, after the batch is written to borrow_audit and
+ * before it is removed from the outbox. Throwing leaves the whole batch in the outbox to be
+ * delivered again later, to every listener.
+ */
+public interface BorrowAuditListener {
+
+    void onEvents(List<BorrowAuditEvent> events);
+}
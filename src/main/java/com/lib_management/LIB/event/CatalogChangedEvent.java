@@ -0,0 +1,9 @@
+package com.lib_management.LIB.event;
+
+/**
+ * A committed book change together with the catalog version it produced. Published by
+ * {@link com.lib_management.LIB.service.CatalogVersion} once per {@link BookChangedEvent}, after
+ * the commit, so plain {@code @EventListener}s see only committed changes, each with its own version.
+ */
+public record CatalogChangedEvent(long version, BookChangedEvent change) {
+}
@@ -0,0 +1,14 @@
+package com.lib_management.LIB.event;
+
+import java.util.List;
+
+import com.lib_management.LIB.entity.Book;
+
+/**
+ * Many books added in one commit, under a single catalog version. Published by
+ * {@link com.lib_management.LIB.service.CatalogVersion} in the same sequence as the
+ * {@link CatalogChangedEvent}s. In-memory views apply {@code added} in one pass; consumers that hand
+ * out per-book changes start over from {@code version} and have their clients reload instead.
+ */
+public record CatalogResetEvent(long version, List<Book> added) {
+}
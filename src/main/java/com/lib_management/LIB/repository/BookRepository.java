@@ -1,13 +1,102 @@
 package com.lib_management.LIB.repository;
 
+import com.lib_management.LIB.dto.BookCopies;
 import com.lib_management.LIB.entity.Book;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-    List<Book> findByTitleContainingIgnoreCase(String title);
-    List<Book> findByCategoryContainingIgnoreCase(String category);
-    List<Book> findByAvailable(boolean b);
+    // Keyset pagination: the primary key is unique and indexed, so it gives a stable order
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    List<Book> findByAvailableTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Whole catalog for export, read through a cursor. "select new" gives detached copies,
+    // so the persistence context does not grow with the table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lib_management.LIB.entity.Book(b.id, b.title, b.author, b.category, b.rentPerDay, "
+            + "b.available, b.totalCopies, b.availableCopies, b.version) from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    // For edits and deletes of the entity: the row stays locked until commit, so no counter update
+    // can move its version in between and fail the optimistic check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id = :id")
+    Optional<Book> findForUpdateById(@Param("id") Long id);
+
+    // Copy counters. Each statement moves copies with a conditional update of the one row, so of
+    // several concurrent borrowers of the last copy exactly one sees 1 row updated and the rest see 0.
+    // No lock is taken before the update, but the update locks the row until its transaction commits,
+    // which the callers keep atomic with the borrow rows so a claimed copy always has a borrow.
+    // Claiming after the borrow insert is not an option: on InnoDB its foreign key check takes a shared
+    // lock on the book row, and concurrent borrowers upgrading that lock deadlock.
+    // available is assigned first: MySQL evaluates SET left to right with the already updated values.
+    // Every one of them bumps the version, as Hibernate does for entity updates
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = case when b.availableCopies > 1 then true else false end, "
+            + "b.availableCopies = b.availableCopies - 1, b.version = b.version + 1 where b.id = :id and b.availableCopies > 0")
+    int claimIfAvailable(@Param("id") Long id);
+
+    // Whole-cart variant: one copy of each title, the caller compares the count with the cart size
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = case when b.availableCopies > 1 then true else false end, "
+            + "b.availableCopies = b.availableCopies - 1, b.version = b.version + 1 where b.id in :ids and b.availableCopies > 0")
+    int claimAllIfAvailable(@Param("ids") Collection<Long> ids);
+
+    // Puts back the copy an outstanding borrow holds, found through the borrow so nothing is read first.
+    // 0 rows if the borrow does not exist or was already returned
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = true, b.availableCopies = b.availableCopies + 1, b.version = b.version + 1 "
+            + "where b.id = (select br.book.id from Borrow br where br.id = :borrowId and br.returnDate is null) "
+            + "and b.availableCopies < b.totalCopies")
+    int releaseIfOutstanding(@Param("borrowId") Long borrowId);
+
+    // The same for several borrows in one statement; a title held by more than one of them gets all those copies back
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = true, b.availableCopies = b.availableCopies + "
+            + "(select count(br) from Borrow br where br.book.id = b.id and br.id in :borrowIds and br.returnDate is null), "
+            + "b.version = b.version + 1 where b.id in (select br.book.id from Borrow br where br.id in :borrowIds and br.returnDate is null)")
+    int releaseAllOutstanding(@Param("borrowIds") Collection<Long> borrowIds);
+
+    // Every copy a user still holds, for deleting the user together with their borrows
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = true, b.availableCopies = b.availableCopies + "
+            + "(select count(br) from Borrow br where br.book.id = b.id and br.user.id = :userId and br.returnDate is null), "
+            + "b.version = b.version + 1 where b.id in (select br.book.id from Borrow br where br.user.id = :userId and br.returnDate is null)")
+    int releaseAllOutstandingOfUser(@Param("userId") Long userId);
+
+    // Changes the number of copies by the difference, so concurrent borrows and returns are kept.
+    // Fails (0 rows) if more copies than the new total are out on loan
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.available = case when b.availableCopies + :total - b.totalCopies > 0 then true else false end, "
+            + "b.availableCopies = b.availableCopies + :total - b.totalCopies, b.totalCopies = :total, "
+            + "b.version = b.version + 1 where b.id = :id and b.availableCopies + :total - b.totalCopies >= 0")
+    int resizeCopies(@Param("id") Long id, @Param("total") int total);
+
+    // Current counters after one of the updates above; the entities in the session do not see them
+    @Query("select new com.lib_management.LIB.dto.BookCopies(b.id, b.totalCopies, b.availableCopies, b.version) "
+            + "from Book b where b.id in :ids")
+    List<BookCopies> findCopies(@Param("ids") Collection<Long> ids);
 }
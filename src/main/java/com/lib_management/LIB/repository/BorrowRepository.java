@@ -1,16 +1,71 @@
 package com.lib_management.LIB.repository;
 
-import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.dto.OverdueBorrow;
 import com.lib_management.LIB.entity.Borrow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowRepository extends JpaRepository<Borrow, Long> {
-    List<Borrow> findByUserId(Long userId);
-    List<Book> findByBookId(Long bookId);
-    void deleteByUserId(Long userId);
+    // Filter on the foreign key columns; the derived versions outer-join the parent table and can't use the index
+    @Query("select b from Borrow b where b.book.id = :bookId")
+    List<Borrow> findByBookId(@Param("bookId") Long bookId);
+
+    // One bulk statement instead of loading and deleting the user's history row by row
+    @Transactional
+    @Modifying
+    @Query("delete from Borrow b where b.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    // Book of every borrow the user has not returned yet, once per borrow
+    @Query("select b.book.id from Borrow b where b.user.id = :userId and b.returnDate is null")
+    List<Long> findOutstandingBookIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select count(b) from Borrow b where b.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    String VIEW_SELECT = "select new com.lib_management.LIB.dto.BorrowView(b.id, bk.id, bk.title, bk.author, "
+            + "u.id, u.username, b.borrowDate, b.dueDate, b.returnDate, b.penalty) "
+            + "from Borrow b join b.book bk join b.user u ";
+
+    // Listings as flat views: one statement per page, no entities and no password hashes
+    @Query(VIEW_SELECT + "where b.id > :afterId order by b.id")
+    List<BorrowView> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(VIEW_SELECT + "where u.username = :username order by b.id")
+    List<BorrowView> findViewsByUsername(@Param("username") String username);
+
+    // Whole history for export; read through a cursor, so it must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(VIEW_SELECT + "order by b.id")
+    Stream<BorrowView> streamAllViews();
+
+    @Query("select b from Borrow b join fetch b.book join fetch b.user where b.id = :id")
+    Optional<Borrow> findWithBookAndUserById(@Param("id") Long id);
+
+    // Loads a whole cart with its books and users in one statement
+    @Query("select b from Borrow b join fetch b.book join fetch b.user where b.id in :ids")
+    List<Borrow> findAllWithBookAndUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset-ordered chunk of open, overdue borrows for penalty accrual; a projection, so nothing enters the persistence context
+    @Query("select new com.lib_management.LIB.dto.OverdueBorrow(b.id, b.dueDate, bk.rentPerDay) "
+            + "from Borrow b join b.book bk "
+            + "where b.returnDate is null and b.dueDate < :asOf and b.id > :afterId order by b.id")
+    List<OverdueBorrow> findOverdueAfter(@Param("asOf") LocalDate asOf, @Param("afterId") Long afterId, Limit limit);
 
 }
@@ -0,0 +1,8 @@
+package com.lib_management.LIB.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.lib_management.LIB.entity.JobCheckpoint;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
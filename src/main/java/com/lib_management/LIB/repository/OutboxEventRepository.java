@@ -0,0 +1,34 @@
+package com.lib_management.LIB.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.lib_management.LIB.entity.OutboxEvent;
+
+import jakarta.persistence.LockModeType;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Locked so that a second application instance draining at the same time waits instead of
+    // delivering the same events twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findOldest(Limit limit);
+
+    // One event per borrow of the user in one statement, numbered from firstId in borrow id order.
+    // At most count rows, the size of the id range the caller reserved
+    @Modifying
+    @Query(value = "INSERT INTO outbox_events (id, type, borrow_id, book_id, user_id, penalty, occurred_at) "
+            + "SELECT :firstId + r.n - 1, :type, r.id, r.book_id, r.user_id, r.penalty, :occurredAt FROM "
+            + "(SELECT b.id, b.book_id, b.user_id, b.penalty, ROW_NUMBER() OVER (ORDER BY b.id) AS n "
+            + "FROM borrow b WHERE b.user_id = :userId) r WHERE r.n <= :count", nativeQuery = true)
+    int insertForUserBorrows(@Param("type") String type, @Param("userId") Long userId, @Param("firstId") long firstId,
+                             @Param("count") long count, @Param("occurredAt") LocalDateTime occurredAt);
+}
@@ -1,12 +1,40 @@
 package com.lib_management.LIB.repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.lib_management.LIB.config.CacheConfig;
+import com.lib_management.LIB.dto.UserAccount;
+import com.lib_management.LIB.dto.UserView;
 import com.lib_management.LIB.entity.User;
 
+import jakarta.persistence.QueryHint;
+
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
-}
\ No newline at end of file
+    // Hit on every login, borrow and token refresh; UserService evicts on every write.
+    // The cache holds these immutable records, never the shared User entity
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#p0", unless = "#result == null")
+    @Query("select new com.lib_management.LIB.dto.UserAccount(u.id, u.username, u.password, u.role) "
+            + "from User u where u.username = :username")
+    Optional<UserAccount> findAccountByUsername(@Param("username") String username);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // All users for export, without password hashes, read through a cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lib_management.LIB.dto.UserView(u.id, u.username, u.email, u.role) from User u order by u.id")
+    Stream<UserView> streamAllViews();
+
+}
@@ -0,0 +1,367 @@
+package com.lib_management.LIB.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.lib_management.LIB.dto.ImportStatus;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BooksImportedEvent;
+import com.lib_management.LIB.util.Csv;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Bulk catalog import from CSV (columns title, author, category, rentPerDay and optionally available
+ * and totalCopies).
+ *
+ * The upload is copied to a temp file and imported in the background, one job at a time. The file
+ * is parsed as a stream into chunks; chunks are validated on a thread pool while earlier chunks are
+ * being written, and each chunk is inserted in its own transaction with JDBC batching and a
+ * flush/clear every {@code flush-interval} rows. At most a few chunks are in memory at once,
+ * whatever the file size. Rejected rows are counted and the first ones reported with their row number.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "author", "category", "rentperday");
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_JOBS_KEPT = 100;
+
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int flushInterval;
+    private final int maxReportedErrors;
+    private final int validationThreads;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService validationPool;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+
+    public BookImportService(EntityManager entityManager, ApplicationEventPublisher events,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${library.import.chunk-size:5000}") int chunkSize,
+                             @Value("${library.import.flush-interval:1000}") int flushInterval,
+                             @Value("${library.import.max-reported-errors:1000}") int maxReportedErrors,
+                             @Value("${library.import.validation-threads:0}") int validationThreads) {
+        this.entityManager = entityManager;
+        this.events = events;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.flushInterval = flushInterval;
+        this.maxReportedErrors = maxReportedErrors;
+        this.validationThreads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        this.jobExecutor = Executors.newSingleThreadExecutor(daemon("book-import"));
+        this.validationPool = Executors.newFixedThreadPool(this.validationThreads, daemon("book-import-validate"));
+    }
+
+    /** Stores the upload and queues it for import; poll {@link #getStatus} with the returned job id. */
+    public ImportStatus submit(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("The uploaded file is empty");
+        }
+        Path copy;
+        try {
+            // The multipart temp file is deleted when the request ends, so keep our own copy
+            copy = Files.createTempFile("book-import-", ".csv");
+            file.transferTo(copy);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store the uploaded file", e);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        jobOrder.add(job.id);
+        forgetOldJobs();
+        jobExecutor.submit(() -> run(job, copy));
+        return job.snapshot();
+    }
+
+    public Optional<ImportStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    private void run(Job job, Path file) {
+        job.startedAt = Instant.now();
+        job.state = ImportStatus.State.RUNNING;
+        Deque<Future<ValidatedChunk>> inFlight = new ArrayDeque<>();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = readHeader(Csv.readRow(in));
+
+            List<RawRow> chunk = new ArrayList<>(chunkSize);
+            long rowNumber = 0;
+            List<String> fields;
+            while ((fields = Csv.readRow(in)) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                chunk.add(new RawRow(++rowNumber, fields));
+                job.rowsRead.incrementAndGet();
+                if (chunk.size() == chunkSize) {
+                    List<RawRow> rows = chunk;
+                    inFlight.add(validationPool.submit(() -> validate(rows, columns)));
+                    chunk = new ArrayList<>(chunkSize);
+                    // Bounded pipeline: write the oldest chunk before reading further ahead
+                    while (inFlight.size() > validationThreads) {
+                        write(job, inFlight.poll().get());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<RawRow> rows = chunk;
+                inFlight.add(validationPool.submit(() -> validate(rows, columns)));
+            }
+            while (!inFlight.isEmpty()) {
+                write(job, inFlight.poll().get());
+            }
+            job.state = ImportStatus.State.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import was interrupted");
+        } catch (ExecutionException e) {
+            job.fail(e.getCause().getMessage());
+        } catch (IOException | RuntimeException e) {
+            job.fail(e.getMessage());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            job.finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+            log.info("Book import {} {}: {} rows read, {} imported, {} rejected", job.id, job.state,
+                    job.rowsRead.get(), job.imported.get(), job.rejected.get());
+        }
+    }
+
+    // Column positions by lower-cased header name; the four book fields are mandatory
+    private Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new RuntimeException("The file has no header row");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Missing columns: " + missing);
+        }
+        return columns;
+    }
+
+    private ValidatedChunk validate(List<RawRow> rows, Map<String, Integer> columns) {
+        List<Book> books = new ArrayList<>(rows.size());
+        List<ImportStatus.RowError> errors = new ArrayList<>();
+        for (RawRow row : rows) {
+            try {
+                books.add(toBook(row.fields(), columns));
+            } catch (IllegalArgumentException e) {
+                errors.add(new ImportStatus.RowError(row.number(), e.getMessage()));
+            }
+        }
+        return new ValidatedChunk(rows.get(0).number(), rows.get(rows.size() - 1).number(), books, errors);
+    }
+
+    private Book toBook(List<String> fields, Map<String, Integer> columns) {
+        String rent = field(fields, columns, "rentperday");
+        double rentPerDay;
+        try {
+            rentPerDay = Double.parseDouble(rent);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("rentPerDay is not a number: " + rent);
+        }
+        if (!Double.isFinite(rentPerDay) || rentPerDay < 0) {
+            throw new IllegalArgumentException("rentPerDay must be zero or positive");
+        }
+        String available = field(fields, columns, "available");
+        if (!available.isEmpty() && !available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("available must be true or false");
+        }
+        String copies = field(fields, columns, "totalcopies");
+        int totalCopies;
+        try {
+            totalCopies = copies.isEmpty() ? 1 : Integer.parseInt(copies);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("totalCopies is not a whole number: " + copies);
+        }
+        if (totalCopies < 1) {
+            throw new IllegalArgumentException("totalCopies must be at least 1");
+        }
+        boolean onShelf = available.isEmpty() || Boolean.parseBoolean(available);
+        return Book.builder()
+                .title(requiredText(fields, columns, "title"))
+                .author(requiredText(fields, columns, "author"))
+                .category(requiredText(fields, columns, "category"))
+                .rentPerDay(rentPerDay)
+                .available(onShelf)
+                .totalCopies(totalCopies)
+                .availableCopies(onShelf ? totalCopies : 0)
+                .build();
+    }
+
+    private String requiredText(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(column + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? "" : fields.get(index).trim();
+    }
+
+    private void write(Job job, ValidatedChunk chunk) {
+        chunk.errors().forEach(job::reject);
+        if (chunk.books().isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk.books()));
+            job.imported.addAndGet(chunk.books().size());
+        } catch (RuntimeException e) {
+            // The chunk's transaction rolled back as a whole; report it and carry on with the next one
+            log.warn("Book import {} could not save rows {}-{}", job.id, chunk.firstRow(), chunk.lastRow(), e);
+            job.rejected.addAndGet(chunk.books().size());
+            job.report(new ImportStatus.RowError(chunk.firstRow(),
+                    "Rows " + chunk.firstRow() + "-" + chunk.lastRow() + " could not be saved: " + e.getMessage()));
+        }
+    }
+
+    // One event for the whole chunk: a change per row would flood the change log and every SSE client
+    private void insert(List<Book> books) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(flushInterval);
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            entityManager.persist(book);
+            // Keep the persistence context small; the flushed rows go out as one JDBC batch
+            if ((i + 1) % flushInterval == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        events.publishEvent(new BooksImportedEvent(List.copyOf(books)));
+    }
+
+    // Finished jobs are kept for polling until there are more than MAX_JOBS_KEPT of them
+    private void forgetOldJobs() {
+        while (jobOrder.size() > MAX_JOBS_KEPT) {
+            String oldest = jobOrder.peek();
+            Job job = jobs.get(oldest);
+            if (job != null && job.finishedAt == null) {
+                return;
+            }
+            jobOrder.poll();
+            jobs.remove(oldest);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record RawRow(long number, List<String> fields) {
+    }
+
+    private record ValidatedChunk(long firstRow, long lastRow, List<Book> books, List<ImportStatus.RowError> errors) {
+    }
+
+    private final class Job {
+        private final String id;
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<ImportStatus.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile ImportStatus.State state = ImportStatus.State.QUEUED;
+        private volatile String failure;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        private Job(String id) {
+            this.id = id;
+        }
+
+        private void reject(ImportStatus.RowError error) {
+            rejected.incrementAndGet();
+            report(error);
+        }
+
+        private void report(ImportStatus.RowError error) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            }
+        }
+
+        private void fail(String message) {
+            failure = message;
+            state = ImportStatus.State.FAILED;
+        }
+
+        private ImportStatus snapshot() {
+            List<ImportStatus.RowError> reported;
+            synchronized (errors) {
+                reported = List.copyOf(errors);
+            }
+            return new ImportStatus(id, state, rowsRead.get(), imported.get(), rejected.get(), reported,
+                    failure, startedAt, finishedAt);
+        }
+    }
+}
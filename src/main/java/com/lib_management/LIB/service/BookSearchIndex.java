@@ -0,0 +1,445 @@
+package com.lib_management.LIB.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+import com.lib_management.LIB.event.CatalogResetEvent;
+import com.lib_management.LIB.repository.BookRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory inverted trigram index over book title, author and category.
+ *
+ * Every book gets a dense internal doc id. For each field we keep a map from trigram to the
+ * sorted doc ids containing it. A "contains" query intersects the postings of the query's
+ * trigrams and then confirms each candidate with a substring check, so the database is never
+ * touched at query time. The index is loaded once at startup and then kept current from
+ * {@link CatalogChangedEvent}s, which carry only the newest committed change of each book.
+ */
+@Component
+public class BookSearchIndex {
+
+    public enum Field {
+        TITLE,
+        AUTHOR,
+        CATEGORY
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final int GRAM = 3;
+    // Texts are padded with this so even one or two letter values produce a trigram
+    private static final char BOUNDARY = '\u0000';
+    private static final int LOAD_BATCH = 1000;
+
+    private final BookRepository bookRepository;
+    private final int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> docIdByBookId = new HashMap<>();
+    private final EnumMap<Field, Map<String, Postings>> postings = new EnumMap<>(Field.class);
+    private final EnumMap<Field, String[]> texts = new EnumMap<>(Field.class);
+    private Book[] docs = new Book[1024];
+    private int nextDocId;
+    // Doc ids of removed books, handed out again before the arrays grow
+    private int[] freeDocIds = new int[16];
+    private int freeCount;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${library.search.max-results:1000}") int maxResults) {
+        this.bookRepository = bookRepository;
+        this.maxResults = maxResults;
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+            texts.put(field, new String[docs.length]);
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        long after = 0L;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(LOAD_BATCH));
+            batch.forEach(this::index);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH);
+        log.info("Indexed {} books for search in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        apply(event.change());
+    }
+
+    // Imported books, indexed under one hold of the write lock
+    @EventListener
+    public void onCatalogReset(CatalogResetEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.added().forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void apply(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.DELETED) {
+            remove(event.bookId());
+        } else {
+            index(event.current());
+        }
+    }
+
+    /** Adds the book or, if it is already indexed, replaces it in place. */
+    public void index(Book book) {
+        Book snapshot = book.toBuilder().build();
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByBookId.get(snapshot.getId());
+            if (docId == null) {
+                docId = allocateDocId();
+                docIdByBookId.put(snapshot.getId(), docId);
+            }
+            for (Field field : Field.values()) {
+                String previous = texts.get(field)[docId];
+                String text = normalize(valueOf(snapshot, field));
+                // Availability flips are the common update; skip the postings when the text is unchanged
+                if (text.equals(previous)) {
+                    continue;
+                }
+                if (previous != null) {
+                    unpost(field, previous, docId);
+                }
+                post(field, text, docId);
+                texts.get(field)[docId] = text;
+            }
+            docs[docId] = snapshot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByBookId.remove(bookId);
+            if (docId == null) {
+                return;
+            }
+            for (Field field : Field.values()) {
+                String previous = texts.get(field)[docId];
+                if (previous != null) {
+                    unpost(field, previous, docId);
+                    texts.get(field)[docId] = null;
+                }
+            }
+            docs[docId] = null;
+            if (freeCount == freeDocIds.length) {
+                freeDocIds = Arrays.copyOf(freeDocIds, freeCount * 2);
+            }
+            freeDocIds[freeCount++] = docId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIdByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Slots allocated so far; removed books' slots are reused, so this only grows with the catalog
+    int capacity() {
+        lock.readLock().lock();
+        try {
+            return nextDocId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Case-insensitive "contains" search on a single field. */
+    public List<Book> search(Field field, String query) {
+        return search(null, Map.of(field, query));
+    }
+
+    /**
+     * Books matching every given criterion. {@code anyField} matches title, author or category;
+     * each entry of {@code fieldQueries} must match its own field. Null or empty criteria are ignored.
+     */
+    public List<Book> search(String anyField, Map<Field, String> fieldQueries) {
+        boolean hasAny = anyField != null && !anyField.isEmpty();
+        long criteria = fieldQueries.values().stream().filter(v -> v != null && !v.isEmpty()).count();
+        // Results are capped in doc id order, so a lone criterion can stop after maxResults hits.
+        // The first N of a union are always within the first N of each part, so "any field" can too.
+        int limit = ((hasAny ? 1 : 0) + criteria) == 1 ? maxResults : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            if (hasAny) {
+                int[] any = new int[0];
+                for (Field field : Field.values()) {
+                    any = union(any, match(field, anyField, limit));
+                }
+                result = any;
+            }
+            for (Map.Entry<Field, String> criterion : fieldQueries.entrySet()) {
+                if (criterion.getValue() == null || criterion.getValue().isEmpty()) {
+                    continue;
+                }
+                int[] hits = match(criterion.getKey(), criterion.getValue(), limit);
+                result = result == null ? hits : intersect(result, hits);
+            }
+            if (result == null) {
+                return List.of();
+            }
+            // Doc ids follow insertion order for everything loaded at startup; later adds may reuse freed ids
+            List<Book> books = new ArrayList<>(Math.min(result.length, maxResults));
+            for (int i = 0; i < result.length && books.size() < maxResults; i++) {
+                books.add(docs[result[i]]);
+            }
+            books.sort(Comparator.comparing(Book::getId));
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // First `limit` doc ids (ascending) whose field text contains the query
+    private int[] match(Field field, String query, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return new int[0];
+        }
+        Map<String, Postings> index = postings.get(field);
+        String[] fieldTexts = texts.get(field);
+        Hits hits = new Hits(limit);
+        if (needle.length() >= GRAM) {
+            List<Postings> lists = new ArrayList<>();
+            for (String gram : gramsOf(needle)) {
+                Postings list = index.get(gram);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            // Walk the rarest trigram's postings and probe the others, so work stops as soon as the limit is reached
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings rarest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            candidates:
+            for (int i = 0; i < rarest.size && !hits.full(); i++) {
+                int docId = rarest.ids[i];
+                for (int l = 1; l < lists.size(); l++) {
+                    cursors[l] = lists.get(l).seek(docId, cursors[l]);
+                    if (cursors[l] < 0) {
+                        cursors[l] = -cursors[l] - 1;
+                        continue candidates;
+                    }
+                }
+                // Having all trigrams does not mean they are adjacent, so confirm the candidate
+                if (fieldTexts[docId].contains(needle)) {
+                    hits.add(docId);
+                }
+            }
+        } else {
+            // Too short for a trigram: walk the gram dictionary, which is far smaller than the catalog
+            BitSet bits = new BitSet(nextDocId);
+            for (Map.Entry<String, Postings> entry : index.entrySet()) {
+                if (entry.getKey().contains(needle)) {
+                    entry.getValue().addTo(bits);
+                }
+            }
+            for (int docId = bits.nextSetBit(0); docId >= 0 && !hits.full(); docId = bits.nextSetBit(docId + 1)) {
+                if (fieldTexts[docId].contains(needle)) {
+                    hits.add(docId);
+                }
+            }
+        }
+        return hits.toArray();
+    }
+
+    private void post(Field field, String text, int docId) {
+        Map<String, Postings> index = postings.get(field);
+        for (String gram : gramsOf(pad(text))) {
+            index.computeIfAbsent(gram, g -> new Postings()).add(docId);
+        }
+    }
+
+    private void unpost(Field field, String text, int docId) {
+        Map<String, Postings> index = postings.get(field);
+        for (String gram : gramsOf(pad(text))) {
+            Postings list = index.get(gram);
+            if (list != null && list.remove(docId) && list.size == 0) {
+                index.remove(gram);
+            }
+        }
+    }
+
+    private int allocateDocId() {
+        if (freeCount > 0) {
+            return freeDocIds[--freeCount];
+        }
+        if (nextDocId == docs.length) {
+            int capacity = docs.length * 2;
+            docs = Arrays.copyOf(docs, capacity);
+            for (Field field : Field.values()) {
+                texts.put(field, Arrays.copyOf(texts.get(field), capacity));
+            }
+        }
+        return nextDocId++;
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String pad(String text) {
+        return text.isEmpty() ? text : BOUNDARY + text + BOUNDARY;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String valueOf(Book book, Field field) {
+        return switch (field) {
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case CATEGORY -> book.getCategory();
+        };
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static final class Hits {
+        private final int limit;
+        private int[] ids = new int[16];
+        private int size;
+
+        Hits(int limit) {
+            this.limit = limit;
+        }
+
+        void add(int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+
+        boolean full() {
+            return size >= limit;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /** Sorted, growable list of doc ids. Kept as a primitive array to stay compact at a million books. */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            int pos = Arrays.binarySearch(ids, 0, size, docId);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = docId;
+            size++;
+        }
+
+        boolean remove(int docId) {
+            int pos = Arrays.binarySearch(ids, 0, size, docId);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        // Position of docId at or after `from`, or (-(insertion point) - 1); callers probe in ascending order
+        int seek(int docId, int from) {
+            return Arrays.binarySearch(ids, from, size, docId);
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+}
@@ -1,60 +1,184 @@
 package com.lib_management.LIB.service;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.lib_management.LIB.config.CacheConfig;
+import com.lib_management.LIB.config.PaginationProperties;
+import com.lib_management.LIB.config.ReplicaRead;
+import com.lib_management.LIB.dto.BookSearchResults;
+import com.lib_management.LIB.dto.CatalogChanges;
+import com.lib_management.LIB.dto.CategoryFacet;
+import com.lib_management.LIB.dto.CursorPage;
 import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
 import com.lib_management.LIB.repository.BookRepository;
 
 @Service
 public class BookService {
     private final BookRepository bookRepository;
+    private final PaginationProperties pagination;
+    private final BookSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
+    private final Cache books;
+    private final CatalogChangeLog changeLog;
+    private final CategoryFacets categoryFacets;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, PaginationProperties pagination,
+                       BookSearchIndex searchIndex, ApplicationEventPublisher events, CacheManager cacheManager,
+                       CatalogChangeLog changeLog, CategoryFacets categoryFacets) {
         this.bookRepository = bookRepository;
+        this.pagination = pagination;
+        this.searchIndex = searchIndex;
+        this.events = events;
+        this.books = cacheManager.getCache(CacheConfig.BOOKS);
+        this.changeLog = changeLog;
+        this.categoryFacets = categoryFacets;
     }
 
-    public List<Book> getAllBooks(){
-        return bookRepository.findAll();
+    @ReplicaRead
+    public CursorPage<Book> getAllBooks(Long after, Integer size){
+        int pageSize = pagination.resolveSize(size);
+        List<Book> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(
+                pagination.resolveCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Book::getId);
     }
 
+    // A new title starts with all its copies on the shelf, or none if it is added as not available
     public Book addBook(Book book){
-        return bookRepository.save(book);
+        if (book.getTotalCopies() < 1) {
+            throw new RuntimeException("A book needs at least one copy");
+        }
+        book.setAvailableCopies(book.isAvailable() ? book.getTotalCopies() : 0);
+        book.setAvailable(book.getAvailableCopies() > 0);
+        Book saved = bookRepository.save(book);
+        events.publishEvent(BookChangedEvent.added(saved));
+        return saved;
     }
 
+    // Read under the row lock, so a borrow or return cannot bump the version before the update
+    @Transactional
     public Book updateBook(Long id, Book bookDetails){
-        Book book = bookRepository.findById(id)
+        Book book = bookRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found with id " + id));
+        Book previous = book.toBuilder().build();
 
         book.setTitle(bookDetails.getTitle());
         book.setAuthor(bookDetails.getAuthor());
         book.setCategory(bookDetails.getCategory());
         book.setRentPerDay(bookDetails.getRentPerDay());
-        book.setAvailable(bookDetails.isAvailable());
 
-        return bookRepository.save(book);
+        // Flushed here so the event carries the version this update gives the row
+        Book saved = bookRepository.saveAndFlush(book);
+        events.publishEvent(BookChangedEvent.updated(previous, saved));
+        return saved;
     }
 
-    public void deleteBook(Long id){
+    /**
+     * Sets how many copies of a title the library has. Copies on loan stay on loan, so the total
+     * cannot go below their number.
+     */
+    @Transactional
+    public Book setCopies(Long id, int totalCopies){
+        if (totalCopies < 0) {
+            throw new RuntimeException("The number of copies cannot be negative");
+        }
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found with id " + id));
+        if (bookRepository.resizeCopies(id, totalCopies) == 0) {
+            throw new RuntimeException("More copies of this book are on loan than " + totalCopies);
+        }
+        Book resized = bookRepository.findCopies(List.of(id)).get(0).applyTo(book);
+        events.publishEvent(BookChangedEvent.updated(book, resized));
+        return resized;
+    }
+
+    @Transactional
+    public void deleteBook(Long id){
+        Book book = bookRepository.findForUpdateById(id)
+                .orElseThrow(() -> new RuntimeException("Book not found with id " + id));
         bookRepository.delete(book);
+        events.publishEvent(BookChangedEvent.deleted(book));
     }
 
+    // Searches are answered by the in-memory trigram index instead of LIKE '%x%' scans
+    @Timed(value = "library.books.search", extraTags = {"by", "title"})
     public List<Book> searchByTitle(String title){
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        return searchIndex.search(BookSearchIndex.Field.TITLE, title);
     }
 
+    @Timed(value = "library.books.search", extraTags = {"by", "category"})
     public List<Book> searchByCategory(String category){
-        return bookRepository.findByCategoryContainingIgnoreCase(category);
+        return searchIndex.search(BookSearchIndex.Field.CATEGORY, category);
+    }
+
+    @Timed(value = "library.books.search", extraTags = {"by", "query"})
+    public List<Book> search(String query, String title, String author, String category){
+        Map<BookSearchIndex.Field, String> fields = new EnumMap<>(BookSearchIndex.Field.class);
+        fields.put(BookSearchIndex.Field.TITLE, title);
+        fields.put(BookSearchIndex.Field.AUTHOR, author);
+        fields.put(BookSearchIndex.Field.CATEGORY, category);
+        return searchIndex.search(query, fields);
+    }
+
+    // Counted over the matches in memory, like the search itself
+    public BookSearchResults searchWithFacets(String query, String title, String author, String category){
+        List<Book> found = search(query, title, author, category);
+        return new BookSearchResults(found, CategoryFacets.of(found));
+    }
+
+    // Kept current from BookChangedEvents (see CategoryFacets); never reads the database
+    public List<CategoryFacet> getCategoryFacets() {
+        return categoryFacets.facets();
+    }
+
+    /**
+     * Catalog changes after the given version, or empty when there is no version or the change log no
+     * longer reaches back to it and the client needs a snapshot (see {@link #snapshotVersion()}).
+     */
+    public Optional<CatalogChanges> getChangesSince(String since) {
+        return since == null ? Optional.empty() : changeLog.changesSince(since);
+    }
+
+    // Taken before the snapshot rows are read: a change committed in between is in the rows and sent
+    // again next time. The rows come from the primary, where everything up to this version is visible
+    public String snapshotVersion() {
+        return changeLog.latestToken();
+    }
+
+    @ReplicaRead
+    public CursorPage<Book> getAvailableBooks(Long after, Integer size){
+        int pageSize = pagination.resolveSize(size);
+        List<Book> rows = bookRepository.findByAvailableTrueAndIdGreaterThanOrderByIdAsc(
+                pagination.resolveCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Book::getId);
     }
 
-    public List<Book> getAvailableBooks(){
-        return bookRepository.findByAvailable(true);
+    // Not a @ReplicaRead: a lagging replica's row would be cached for the whole TTL
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", unless = "#result == null")
+    public Optional<Book> getBookById(Long id) {
+        // A detached copy: the cache must not share the persistence context's managed entity
+        return bookRepository.findById(id).map(book -> book.toBuilder().build());
     }
 
-     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+    /**
+     * Every write to a book, here or in BorrowService, publishes a BookChangedEvent; the cached
+     * copy is dropped once that write has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evictCachedBook(BookChangedEvent event) {
+        // evictIfPresent runs immediately; a plain evict would be deferred to a commit that has already happened
+        books.evictIfPresent(event.bookId());
     }
 }
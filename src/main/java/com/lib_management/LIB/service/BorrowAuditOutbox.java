@@ -0,0 +1,72 @@
+package com.lib_management.LIB.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.lib_management.LIB.config.IdBlockAllocator;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.OutboxEvent;
+import com.lib_management.LIB.event.BorrowAuditEvent;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.OutboxEventRepository;
+
+/**
+ * Records borrow events for the audit trail in the caller's transaction, so an event exists exactly
+ * when the change it describes committed. Nothing is written on the spot: the outbox rows are
+ * inserted with the rest of the transaction's flush and {@link OutboxDispatcher} delivers them later.
+ */
+@Service
+public class BorrowAuditOutbox {
+
+    private static final String OUTBOX_TABLE = "outbox_events";
+
+    private final OutboxEventRepository outboxRepository;
+    private final BorrowRepository borrowRepository;
+    private final IdBlockAllocator idAllocator;
+    private final boolean enabled;
+
+    public BorrowAuditOutbox(OutboxEventRepository outboxRepository, BorrowRepository borrowRepository,
+                             IdBlockAllocator idAllocator, @Value("${library.audit.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.borrowRepository = borrowRepository;
+        this.idAllocator = idAllocator;
+        this.enabled = enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BorrowAuditEvent.Type type, Borrow borrow) {
+        record(type, List.of(borrow));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BorrowAuditEvent.Type type, List<Borrow> borrows) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.saveAll(borrows.stream().map(borrow -> OutboxEvent.of(type, borrow, now)).toList());
+    }
+
+    /**
+     * Records an event for every borrow of the user, before a bulk delete of them. The rows are
+     * copied by one INSERT ... SELECT into a range of ids reserved for them, so a long history costs
+     * the same two statements as a short one and no borrow is loaded.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAllOfUser(BorrowAuditEvent.Type type, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        long count = borrowRepository.countByUserId(userId);
+        if (count == 0) {
+            return;
+        }
+        long firstId = idAllocator.reserveRange(OUTBOX_TABLE, count);
+        outboxRepository.insertForUserBorrows(type.name(), userId, firstId, count, LocalDateTime.now());
+    }
+}
@@ -1,17 +1,32 @@
 package com.lib_management.LIB.service;
 
+import com.lib_management.LIB.config.PaginationProperties;
+import com.lib_management.LIB.config.ReplicaRead;
+import com.lib_management.LIB.dto.BookCopies;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.dto.CursorPage;
 import com.lib_management.LIB.entity.Book;
 import com.lib_management.LIB.entity.Borrow;
 import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.BorrowAuditEvent;
 import com.lib_management.LIB.repository.BookRepository;
 import com.lib_management.LIB.repository.BorrowRepository;
 import com.lib_management.LIB.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BorrowService {
@@ -19,79 +34,242 @@ public class BorrowService {
     private final BorrowRepository borrowRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final PaginationProperties pagination;
+    private final ApplicationEventPublisher events;
+    private final int maxBatchSize;
+    private final PenaltyCalculator penaltyCalculator;
+    private final BorrowAuditOutbox audit;
 
     // Corrected: Using constructor injection
-    public BorrowService(BorrowRepository borrowRepository, UserRepository userRepository, BookRepository bookRepository) {
+    public BorrowService(BorrowRepository borrowRepository, UserRepository userRepository, BookRepository bookRepository,
+                         PaginationProperties pagination, ApplicationEventPublisher events,
+                         @Value("${library.borrow.max-batch-size:50}") int maxBatchSize,
+                         PenaltyCalculator penaltyCalculator, BorrowAuditOutbox audit) {
         this.borrowRepository = borrowRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
+        this.pagination = pagination;
+        this.events = events;
+        this.maxBatchSize = maxBatchSize;
+        this.penaltyCalculator = penaltyCalculator;
+        this.audit = audit;
     }
 
-    public List<Borrow> getAllBorrows() {
-        return borrowRepository.findAll();
+    // Admin listing: may trail the latest borrows and returns by the replica's lag
+    @ReplicaRead
+    public CursorPage<BorrowView> getAllBorrows(Long after, Integer size) {
+        int pageSize = pagination.resolveSize(size);
+        List<BorrowView> rows = borrowRepository.findViewsAfter(
+                pagination.resolveCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, BorrowView::id);
     }
 
-   public List<Borrow> getUserBorrows(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
-        return borrowRepository.findByUserId(user.getId());
+    // Not a @ReplicaRead: users open this right after borrowing or returning and must see that change
+    public List<BorrowView> getUserBorrows(String username) {
+        return borrowRepository.findViewsByUsername(username);
     }
 
 
-@Transactional
-public Borrow borrowBook(String username, Long bookId, int days) {
-    User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-    Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new RuntimeException("Book not found"));
+    /**
+     * Borrows one copy. The claim, the borrow row and its audit row commit together or not at all,
+     * so a copy is never counted as out without a borrow holding it, whatever fails or crashes in
+     * between. The claim's row lock is held until that commit; the claim comes after the user lookup
+     * and is followed only by the writes, which keeps the lock window to three short statements.
+     */
+    @Transactional
+    @Timed(value = "library.borrows", extraTags = {"operation", "borrow"})
+    public BorrowView borrowBook(String username, Long bookId, int days) {
+        User user = userRepository.findAccountByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found")).toReference();
 
-        if (!book.isAvailable()) {
+        // Take a copy with a single conditional update instead of read-check-write,
+        // so concurrent checkouts of the last copy cannot both succeed
+        if (bookRepository.claimIfAvailable(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new RuntimeException("Book not found");
+            }
             throw new RuntimeException("Book is not available for borrowing");
         }
+        // Read after the claim, so the counters include it
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        events.publishEvent(BookChangedEvent.updated(withAvailableCopies(book, book.getAvailableCopies() + 1), book));
 
-        book.setAvailable(false);
-        bookRepository.save(book);
+        Borrow borrow = borrowRepository.save(newBorrow(user, book, days));
+        audit.record(BorrowAuditEvent.Type.BORROWED, borrow);
+        return BorrowView.from(borrow);
+    }
 
-        Borrow borrow = new Borrow();
-        borrow.setUser(user);
-        borrow.setBook(book);
-        borrow.setBorrowDate(LocalDate.now());
-        borrow.setDueDate(LocalDate.now().plusDays(days));
-        borrow.setPenalty(0.0);
+    /**
+     * Borrows a whole cart in one transaction: one user lookup, one select for the books,
+     * one conditional update that takes a copy of each, one read of the new counters and batched
+     * inserts for the borrow rows.
+     * Either every book is borrowed or none is.
+     */
+    @Transactional
+    @Timed(value = "library.borrows", extraTags = {"operation", "borrow-batch"})
+    public List<BorrowView> borrowBooks(String username, List<Long> bookIds, int days) {
+        List<Long> ids = validateBatch(bookIds);
+        User user = userRepository.findAccountByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found")).toReference();
+
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Long> missing = ids.stream().filter(id -> !books.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Books not found: " + missing);
+        }
+        List<Long> unavailable = ids.stream().filter(id -> !books.get(id).isAvailable()).toList();
+        if (!unavailable.isEmpty()) {
+            throw new RuntimeException("Books not available for borrowing: " + unavailable);
+        }
+        // Someone may have taken a book since the select; the conditional update is what decides
+        if (bookRepository.claimAllIfAvailable(ids) != ids.size()) {
+            throw new RuntimeException("Some books in the cart were just borrowed by someone else");
+        }
+
+        Map<Long, BookCopies> copies = bookRepository.findCopies(ids).stream()
+                .collect(Collectors.toMap(BookCopies::id, Function.identity()));
 
-        return borrowRepository.save(borrow);
+        List<Borrow> borrows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = books.get(id);
+            events.publishEvent(BookChangedEvent.updated(book, copies.get(id).applyTo(book)));
+            borrows.add(newBorrow(user, book, days));
+        }
+        List<Borrow> saved = borrowRepository.saveAll(borrows);
+        audit.record(BorrowAuditEvent.Type.BORROWED, saved);
+        return saved.stream().map(BorrowView::from).toList();
     }
     
     @Transactional
-    public Borrow returnBook(Long borrowId) {
-        Borrow borrow = borrowRepository.findById(borrowId).orElseThrow(() -> new RuntimeException("Borrow record not found"));
+    @Timed(value = "library.borrows", extraTags = {"operation", "return"})
+    public BorrowView returnBook(Long borrowId) {
+        // Copy first, then the borrow with its book: the book read is the one just updated
+        boolean released = bookRepository.releaseIfOutstanding(borrowId) > 0;
+        Borrow borrow = borrowRepository.findWithBookAndUserById(borrowId).orElseThrow(() -> new RuntimeException("Borrow record not found"));
         
         if (borrow.getReturnDate() != null) {
             throw new RuntimeException("Book has already been returned");
         }
         
-        borrow.setReturnDate(LocalDate.now());
-        
-        // Corrected: Direct use of LocalDate for calculation
-        if (borrow.getReturnDate().isAfter(borrow.getDueDate())) {
-            long overdueDays = ChronoUnit.DAYS.between(borrow.getDueDate(), borrow.getReturnDate());
-            double penalty = overdueDays * borrow.getBook().getRentPerDay();
-            borrow.setPenalty(penalty);
+        markReturned(borrow, LocalDate.now());
+
+        if (released) {
+            publishReturned(borrow.getBook(), 1);
         }
+        audit.record(BorrowAuditEvent.Type.RETURNED, borrow);
 
-        Book book = borrow.getBook();
-        book.setAvailable(true);
-        bookRepository.save(book);
+        return BorrowView.from(borrowRepository.save(borrow));
+    }
 
-        return borrowRepository.save(borrow);
+    /**
+     * Returns several borrows in one transaction. All copies are put back with a single statement
+     * and the borrow rows are updated in one JDBC batch.
+     */
+    @Transactional
+    @Timed(value = "library.borrows", extraTags = {"operation", "return-batch"})
+    public List<BorrowView> returnBooks(List<Long> borrowIds) {
+        List<Long> ids = validateBatch(borrowIds);
+        // Anything wrong below rolls this back too
+        bookRepository.releaseAllOutstanding(ids);
+        List<Borrow> borrows = borrowRepository.findAllWithBookAndUserByIdIn(ids);
+        if (borrows.size() != ids.size()) {
+            throw new RuntimeException("Borrow record not found");
+        }
+        List<Long> returned = borrows.stream().filter(b -> b.getReturnDate() != null).map(Borrow::getId).toList();
+        if (!returned.isEmpty()) {
+            throw new RuntimeException("Books have already been returned: " + returned);
+        }
+
+        LocalDate today = LocalDate.now();
+        borrows.forEach(borrow -> markReturned(borrow, today));
+        audit.record(BorrowAuditEvent.Type.RETURNED, borrows);
+
+        // One Book instance per title in the session, so a title returned twice is one event for two copies
+        borrows.stream().collect(Collectors.groupingBy(Borrow::getBook, Collectors.counting()))
+                .forEach((book, count) -> publishReturned(book, count.intValue()));
+        // Managed entities: dirty checking flushes the updates as one batch on commit
+        return borrows.stream().map(BorrowView::from).toList();
     }
 
-    public Borrow DeleteBorrow(Long borrowId) {
-        Borrow borrow = borrowRepository.findById(borrowId).orElseThrow(() -> new RuntimeException("Borrow record not found"));
-        Book book = borrow.getBook();
-        book.setAvailable(true);
-        bookRepository.save(book);
+    @Transactional
+    public BorrowView DeleteBorrow(Long borrowId) {
+        // Only an outstanding borrow still holds a copy; a returned one's copy may have been borrowed again since
+        boolean released = bookRepository.releaseIfOutstanding(borrowId) > 0;
+        Borrow borrow = borrowRepository.findWithBookAndUserById(borrowId).orElseThrow(() -> new RuntimeException("Borrow record not found"));
+        if (released) {
+            publishReturned(borrow.getBook(), 1);
+        }
+        audit.record(BorrowAuditEvent.Type.DELETED, borrow);
         borrowRepository.delete(borrow);
+        return BorrowView.from(borrow);
+    }
+
+    /**
+     * Removes a user's whole borrow history ahead of deleting the user. Copies still out on loan go
+     * back on the shelf and every borrow gets its DELETED audit event, like DeleteBorrow, but each
+     * step is one statement whatever the length of the history.
+     */
+    @Transactional
+    public void deleteAllOfUser(Long userId) {
+        List<Long> heldBookIds = borrowRepository.findOutstandingBookIdsByUserId(userId);
+        if (!heldBookIds.isEmpty()) {
+            bookRepository.releaseAllOutstandingOfUser(userId);
+            Map<Long, Long> copies = heldBookIds.stream()
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            // Read after the release, so these are the new counters
+            bookRepository.findAllById(copies.keySet())
+                    .forEach(book -> publishReturned(book, copies.get(book.getId()).intValue()));
+        }
+        audit.recordAllOfUser(BorrowAuditEvent.Type.DELETED, userId);
+        borrowRepository.deleteByUserId(userId);
+    }
+
+    private Borrow newBorrow(User user, Book book, int days) {
+        Borrow borrow = new Borrow();
+        borrow.setUser(user);
+        borrow.setBook(book);
+        borrow.setBorrowDate(LocalDate.now());
+        borrow.setDueDate(LocalDate.now().plusDays(days));
+        borrow.setPenalty(0.0);
         return borrow;
     }
+
+    private void markReturned(Borrow borrow, LocalDate returnDate) {
+        borrow.setReturnDate(returnDate);
+
+        // Same function as the nightly accrual, so the final penalty matches what was accrued
+        if (borrow.getReturnDate().isAfter(borrow.getDueDate())) {
+            borrow.setPenalty(penaltyCalculator.penaltyFor(
+                    borrow.getDueDate(), borrow.getReturnDate(), borrow.getBook().getRentPerDay()));
+        }
+    }
+
+    // Cart ids in request order, without duplicates and within the configured size
+    private List<Long> validateBatch(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("At least one id is required");
+        }
+        if (ids.contains(null)) {
+            throw new RuntimeException("Ids cannot be null");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() != ids.size()) {
+            throw new RuntimeException("The same id appears more than once");
+        }
+        if (distinct.size() > maxBatchSize) {
+            throw new RuntimeException("At most " + maxBatchSize + " items can be processed at once");
+        }
+        return distinct;
+    }
+
+    // The book is read after its copies were put back, so the previous state is reconstructed
+    private void publishReturned(Book book, int copies) {
+        events.publishEvent(BookChangedEvent.updated(withAvailableCopies(book, book.getAvailableCopies() - copies), book));
+    }
+
+    private static Book withAvailableCopies(Book book, int availableCopies) {
+        return book.toBuilder().availableCopies(availableCopies).available(availableCopies > 0).build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.lib_management.LIB.service;
+
+import java.util.List;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lib_management.LIB.dto.CacheStatistics;
+
+@Service
+public class CacheStatsService {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public List<CacheStatistics> getStats() {
+        return cacheManager.getCacheNames().stream().sorted()
+                .map(name -> statsOf(name, cacheManager.getCache(name)))
+                .toList();
+    }
+
+    private CacheStatistics statsOf(String name, Cache cache) {
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        if (!(cache instanceof CaffeineCache caffeine)) {
+            return new CacheStatistics(name, 0, 0, 0, 0.0, 0);
+        }
+        var nativeCache = caffeine.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return new CacheStatistics(name, nativeCache.estimatedSize(),
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
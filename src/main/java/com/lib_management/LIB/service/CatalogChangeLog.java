@@ -0,0 +1,131 @@
+package com.lib_management.LIB.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.lib_management.LIB.dto.CatalogChange;
+import com.lib_management.LIB.dto.CatalogChanges;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+import com.lib_management.LIB.event.CatalogResetEvent;
+
+/**
+ * The most recent catalog changes, in version order, in a fixed-size ring buffer.
+ *
+ * A client that last synced at version N gets the changes after N, merged to one per book, so
+ * the answer grows with how much changed rather than with the size of the catalog and needs no
+ * database access. Once N has dropped out of the buffer, a bulk import has reset it since, or the
+ * client's token carries another epoch (it predates this process), changesSince returns empty and the
+ * caller sends a snapshot instead.
+ */
+@Service
+public class CatalogChangeLog {
+
+    private final String epoch;
+    private final CatalogChange[] ring;
+    private int head;
+    private int size;
+    // Changes after floor are all in the buffer; latest is the newest version recorded
+    private long floor;
+    private long latest;
+
+    @Autowired
+    public CatalogChangeLog(CatalogVersion catalogVersion,
+                            @Value("${library.catalog.changes.capacity:10000}") int capacity) {
+        this(catalogVersion.epoch(), catalogVersion.current(), capacity);
+    }
+
+    CatalogChangeLog(String epoch, long startVersion, int capacity) {
+        this.epoch = epoch;
+        this.ring = new CatalogChange[capacity];
+        this.floor = startVersion;
+        this.latest = startVersion;
+    }
+
+    // CatalogVersion publishes one event at a time in version order, so appending keeps the buffer sorted
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        record(CatalogChange.from(event));
+    }
+
+    // Per-book changes stop here: every client behind this version gets a snapshot instead
+    @EventListener
+    public synchronized void onCatalogReset(CatalogResetEvent event) {
+        Arrays.fill(ring, null);
+        head = 0;
+        size = 0;
+        floor = event.version();
+        latest = event.version();
+    }
+
+    synchronized void record(CatalogChange change) {
+        if (size == ring.length) {
+            floor = ring[head].version();
+            head = (head + 1) % ring.length;
+            size--;
+        }
+        ring[(head + size) % ring.length] = change;
+        size++;
+        latest = change.version();
+    }
+
+    public synchronized long latest() {
+        return latest;
+    }
+
+    public synchronized String latestToken() {
+        return CatalogVersion.token(epoch, latest);
+    }
+
+    /**
+     * The changes after the version in {@code token}, latest per book in version order, or empty if
+     * the token is from another epoch or the buffer no longer covers that version.
+     */
+    public synchronized Optional<CatalogChanges> changesSince(String token) {
+        OptionalLong parsed = CatalogVersion.parse(epoch, token);
+        if (parsed.isEmpty()) {
+            return Optional.empty();
+        }
+        long version = parsed.getAsLong();
+        if (version < floor || version > latest) {
+            return Optional.empty();
+        }
+        Map<Long, CatalogChange> byBook = new LinkedHashMap<>();
+        for (int i = firstAfter(version); i < size; i++) {
+            CatalogChange change = at(i);
+            CatalogChange earlier = byBook.remove(change.id());
+            byBook.put(change.id(), earlier == null ? change : change.after(earlier));
+        }
+        List<CatalogChange> changes = new ArrayList<>(byBook.size());
+        byBook.values().forEach(change -> changes.add(change.withoutBookForAvailability()));
+        return Optional.of(CatalogChanges.delta(latestToken(), changes));
+    }
+
+    // Binary search for the first buffered change newer than version
+    private int firstAfter(long version) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (at(mid).version() > version) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private CatalogChange at(int index) {
+        return ring[(head + index) % ring.length];
+    }
+}
@@ -0,0 +1,236 @@
+package com.lib_management.LIB.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lib_management.LIB.dto.CatalogChange;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+import com.lib_management.LIB.event.CatalogResetEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Pushes committed catalog changes to Server-Sent Events subscribers (GET /api/books/events).
+ *
+ * Events, with the catalog version token ("epoch-counter") as their id:
+ * <ul>
+ *   <li>{@code availability} {"id", "available"}: a borrow or return flipped a book</li>
+ *   <li>{@code book}: a book was added or edited; the data is the whole book</li>
+ *   <li>{@code deleted} {"id"}: a book was removed</li>
+ *   <li>{@code resync}: this client fell too far behind and missed events, or a bulk import added
+ *   many books at once; reload the list</li>
+ * </ul>
+ *
+ * Nothing here blocks the thread that committed the change. Each event is serialized once on a
+ * single fan-out thread, which offers it to every subscriber's bounded queue; a small pool of
+ * sender threads writes the queues out. A subscriber whose queue is full loses its backlog and is
+ * sent {@code resync} instead, so one slow client costs a bounded amount of memory and never holds
+ * up the others.
+ *
+ * Streams are ended when the application starts shutting down, before the web server's graceful
+ * shutdown, which would otherwise wait out its whole timeout for these never-ending requests.
+ */
+@Service
+public class CatalogEventBroadcaster implements SmartLifecycle, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogEventBroadcaster.class);
+
+    private static final Set<DataWithMediaType> RESYNC = SseEmitter.event().name("resync").data("{}").build();
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    private final ObjectMapper objectMapper;
+    private final String epoch;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(daemon("catalog-events-fan-out"));
+    private final ExecutorService senders;
+    private final Counter resyncs;
+    private volatile boolean running;
+
+    public CatalogEventBroadcaster(ObjectMapper objectMapper, MeterRegistry registry, CatalogVersion catalogVersion,
+                                   @Value("${library.catalog.events.max-subscribers:10000}") int maxSubscribers,
+                                   @Value("${library.catalog.events.buffer-size:64}") int bufferSize,
+                                   @Value("${library.catalog.events.timeout:30m}") Duration timeout,
+                                   @Value("${library.catalog.events.sender-threads:4}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.epoch = catalogVersion.epoch();
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("catalog-events-sender-"));
+        this.resyncs = registry.counter("library.catalog.events.resyncs");
+        registry.gaugeCollectionSize("library.catalog.events.subscribers", Tags.empty(), subscribers);
+    }
+
+    /**
+     * Opens a stream for one client, or returns empty when the subscriber limit is reached. The
+     * stream ends after library.catalog.events.timeout; EventSource clients reconnect by themselves.
+     */
+    public Optional<SseEmitter> subscribe() {
+        if (!running || subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return Optional.of(emitter);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        fanOut.execute(() -> {
+            Set<DataWithMediaType> data;
+            try {
+                data = toSse(event);
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize catalog change {}", event.version(), e);
+                data = RESYNC;
+            }
+            broadcast(data);
+        });
+    }
+
+    // One resync for a whole import chunk rather than an event per book
+    @EventListener
+    public void onCatalogReset(CatalogResetEvent event) {
+        Set<DataWithMediaType> data = SseEmitter.event().id(CatalogVersion.token(epoch, event.version()))
+                .name("resync").data("{}").build();
+        fanOut.execute(() -> broadcast(data));
+    }
+
+    // Keeps idle connections open through proxies and finds clients that have gone away
+    @Scheduled(fixedDelayString = "${library.catalog.events.heartbeat:20s}")
+    public void heartbeat() {
+        fanOut.execute(() -> broadcast(HEARTBEAT));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() {
+        fanOut.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void broadcast(Set<DataWithMediaType> data) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(data);
+        }
+    }
+
+    private Set<DataWithMediaType> toSse(CatalogChangedEvent event) throws JsonProcessingException {
+        CatalogChange change = CatalogChange.from(event);
+        Object data = switch (change.type()) {
+            case availability -> Map.of("id", change.id(), "available", change.available(),
+                    "availableCopies", change.availableCopies());
+            case book -> change.book();
+            case deleted -> Map.of("id", change.id());
+        };
+        return SseEmitter.event().id(CatalogVersion.token(epoch, change.version())).name(change.type().name())
+                .data(objectMapper.writeValueAsString(data)).build();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix.endsWith("-") ? prefix + count.incrementAndGet() : prefix);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Called from the fan-out thread only
+        void offer(Set<DataWithMediaType> data) {
+            if (!queue.offer(data)) {
+                queue.clear();
+                queue.offer(RESYNC);
+                resyncs.increment();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Set<DataWithMediaType> data;
+                while ((data = queue.poll()) != null) {
+                    emitter.send(data);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone or stream already completed
+                subscribers.remove(this);
+                queue.clear();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() && subscribers.contains(this)) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.lib_management.LIB.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.BooksImportedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+import com.lib_management.LIB.event.CatalogResetEvent;
+
+/**
+ * Version of the catalog as a whole, moved forward after every committed book change. Catalog
+ * responses are tagged with it, so a client holding the current version knows nothing changed.
+ *
+ * BookService and BorrowService publish a BookChangedEvent for every add, update, delete, borrow
+ * and return, so listening to those events covers every mutation. The counter starts from zero in
+ * every process, so what clients see is a token "epoch-counter": the epoch is drawn at random when
+ * the process starts, and a token from before a restart (or from another instance) never matches
+ * one issued now, however many changes either process went through.
+ *
+ * Each bump is republished as a {@link CatalogChangedEvent} carrying the new version, for consumers
+ * that push changes to clients instead of waiting to be asked. A chunk of imported books is a single
+ * bump, republished as one {@link CatalogResetEvent}.
+ *
+ * Events reach this listener in the order their threads get past commit, which need not be commit
+ * order. The last row version applied per book (see Book.version) is kept, and an event at or below
+ * it is dropped without a bump: it would move the book back to an older state. Those threads are
+ * only ever out of order by moments, so a book's entry is forgotten once it has not changed for
+ * library.catalog.reorder-window, deleted books included, and the map only holds recently changed books.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() >>> 1, Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<Long, Long> appliedRowVersions;
+    private final ApplicationEventPublisher events;
+
+    @Autowired
+    public CatalogVersion(ApplicationEventPublisher events,
+                          @Value("${library.catalog.reorder-window:1m}") Duration reorderWindow) {
+        this(events, reorderWindow, Ticker.systemTicker());
+    }
+
+    CatalogVersion(ApplicationEventPublisher events, Duration reorderWindow, Ticker ticker) {
+        this.events = events;
+        this.appliedRowVersions = Caffeine.newBuilder().expireAfterWrite(reorderWindow).ticker(ticker).build();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    // The current version as clients see it
+    public String currentToken() {
+        return token(epoch, current());
+    }
+
+    public static String token(String epoch, long version) {
+        return epoch + "-" + version;
+    }
+
+    // The counter in a token issued under this epoch; empty for anything else
+    public static OptionalLong parse(String epoch, String token) {
+        if (token == null || !token.startsWith(epoch + "-")) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(token.substring(epoch.length() + 1)));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    // After commit: bumping earlier would let a reader tag the old rows with the new version.
+    // Synchronized so that listeners receive the CatalogChangedEvents in version order
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (isStale(event)) {
+            return;
+        }
+        events.publishEvent(new CatalogChangedEvent(version.incrementAndGet(), event));
+    }
+
+    // A whole import chunk is one version, however many books it holds
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBooksImported(BooksImportedEvent event) {
+        events.publishEvent(new CatalogResetEvent(version.incrementAndGet(), event.books()));
+    }
+
+    // A delete counts as newer than any version, so nothing for that book is applied after it
+    private boolean isStale(BookChangedEvent event) {
+        Long rowVersion = event.type() == BookChangedEvent.ChangeType.DELETED
+                ? Long.valueOf(Long.MAX_VALUE) : event.current().getVersion();
+        if (rowVersion == null) {
+            return false;
+        }
+        Long applied = appliedRowVersions.getIfPresent(event.bookId());
+        if (applied != null && rowVersion <= applied) {
+            return true;
+        }
+        appliedRowVersions.put(event.bookId(), rowVersion);
+        return false;
+    }
+}
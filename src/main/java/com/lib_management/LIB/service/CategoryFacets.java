@@ -0,0 +1,159 @@
+package com.lib_management.LIB.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.lib_management.LIB.dto.CategoryFacet;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+import com.lib_management.LIB.event.CatalogResetEvent;
+import com.lib_management.LIB.repository.BookRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Total and available book counts per category, held in memory.
+ *
+ * Loaded once at startup and then kept current from {@link CatalogChangedEvent}s: the committed
+ * adds, edits, deletes, borrows and returns in version order, without changes that arrived after a
+ * newer one for the same book. Each book's last counted category and availability are remembered,
+ * so an update moves exactly that book's contribution whatever the event's {@code previous} holds.
+ * Categories are grouped ignoring case and surrounding spaces and shown as first seen.
+ */
+@Component
+public class CategoryFacets {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryFacets.class);
+
+    private static final int LOAD_BATCH = 1000;
+
+    private record Counted(String key, boolean available) {
+    }
+
+    private static final class Bucket {
+        final String category;
+        long total;
+        long available;
+
+        Bucket(String category) {
+            this.category = category;
+        }
+    }
+
+    private final BookRepository bookRepository;
+    private final Map<Long, Counted> counted = new HashMap<>();
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    public CategoryFacets(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        long after = 0L;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(LOAD_BATCH));
+            batch.forEach(this::put);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH);
+        log.info("Counted books in {} categories in {} ms", facets().size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        apply(event.change());
+    }
+
+    void apply(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.DELETED) {
+            remove(event.bookId());
+        } else {
+            put(event.current());
+        }
+    }
+
+    @EventListener
+    public synchronized void onCatalogReset(CatalogResetEvent event) {
+        event.added().forEach(this::put);
+    }
+
+    /** Counts the book, replacing whatever was counted for it before. */
+    public synchronized void put(Book book) {
+        Counted previous = counted.get(book.getId());
+        String key = key(book.getCategory());
+        if (previous != null) {
+            if (previous.key().equals(key) && previous.available() == book.isAvailable()) {
+                return;
+            }
+            uncount(previous);
+        }
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(book.getCategory().trim()));
+        bucket.total++;
+        if (book.isAvailable()) {
+            bucket.available++;
+        }
+        counted.put(book.getId(), new Counted(key, book.isAvailable()));
+    }
+
+    public synchronized void remove(Long bookId) {
+        Counted previous = counted.remove(bookId);
+        if (previous != null) {
+            uncount(previous);
+        }
+    }
+
+    /** Every category with at least one book, by name. */
+    public synchronized List<CategoryFacet> facets() {
+        List<CategoryFacet> facets = new ArrayList<>(buckets.size());
+        buckets.values().forEach(bucket -> facets.add(new CategoryFacet(bucket.category, bucket.total, bucket.available)));
+        facets.sort(Comparator.comparing(CategoryFacet::category, String.CASE_INSENSITIVE_ORDER));
+        return facets;
+    }
+
+    /** The same counts over a given set of books, such as search results. */
+    public static List<CategoryFacet> of(Collection<Book> books) {
+        Map<String, Bucket> counts = new HashMap<>();
+        for (Book book : books) {
+            Bucket bucket = counts.computeIfAbsent(key(book.getCategory()), k -> new Bucket(book.getCategory().trim()));
+            bucket.total++;
+            if (book.isAvailable()) {
+                bucket.available++;
+            }
+        }
+        return counts.values().stream()
+                .map(bucket -> new CategoryFacet(bucket.category, bucket.total, bucket.available))
+                .sorted(Comparator.comparing(CategoryFacet::category, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+    }
+
+    private void uncount(Counted previous) {
+        Bucket bucket = buckets.get(previous.key());
+        bucket.total--;
+        if (previous.available()) {
+            bucket.available--;
+        }
+        if (bucket.total == 0) {
+            buckets.remove(previous.key());
+        }
+    }
+
+    private static String key(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+}
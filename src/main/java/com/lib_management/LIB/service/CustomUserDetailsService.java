@@ -7,7 +7,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.dto.UserAccount;
 import com.lib_management.LIB.repository.UserRepository;
 
 @Service
@@ -18,13 +18,13 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserAccount user = userRepository.findAccountByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .roles(user.getRole().name())  // "ADMIN" or "USER"
+                .withUsername(user.username())
+                .password(user.password())
+                .roles(user.role().name())  // "ADMIN" or "USER"
                 .build();
     }
 }
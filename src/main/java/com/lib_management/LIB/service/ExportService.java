@@ -0,0 +1,160 @@
+package com.lib_management.LIB.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.dto.CatalogChanges;
+import com.lib_management.LIB.dto.ExportFormat;
+import com.lib_management.LIB.dto.UserView;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.util.Csv;
+
+/**
+ * Full-table exports written row by row as they come off a server-side cursor.
+ *
+ * Each export runs in its own read-only transaction on the async thread that writes the response,
+ * reads projections rather than managed entities, and never holds more than the JDBC fetch size
+ * and the writer buffer in memory, whatever the table size.
+ */
+@Service
+public class ExportService {
+
+    private static final List<String> BORROW_COLUMNS = List.of("id", "bookId", "bookTitle", "bookAuthor",
+            "userId", "username", "borrowDate", "dueDate", "returnDate", "penalty");
+    private static final List<String> BOOK_COLUMNS = List.of("id", "title", "author", "category",
+            "rentPerDay", "available", "totalCopies", "availableCopies");
+    private static final List<String> USER_COLUMNS = List.of("id", "username", "email", "role");
+
+    private final BorrowRepository borrowRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(BorrowRepository borrowRepository, BookRepository bookRepository,
+                         UserRepository userRepository, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.borrowRepository = borrowRepository;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StreamingResponseBody exportBorrows(ExportFormat format) {
+        return export(format, borrowRepository::streamAllViews, BORROW_COLUMNS, b -> Arrays.asList(
+                b.id(), b.bookId(), b.bookTitle(), b.bookAuthor(), b.userId(), b.username(),
+                b.borrowDate(), b.dueDate(), b.returnDate(), b.penalty()));
+    }
+
+    public StreamingResponseBody exportBooks(ExportFormat format) {
+        return export(format, bookRepository::streamAll, BOOK_COLUMNS, b -> Arrays.asList(
+                b.getId(), b.getTitle(), b.getAuthor(), b.getCategory(), b.getRentPerDay(), b.isAvailable(),
+                b.getTotalCopies(), b.getAvailableCopies()));
+    }
+
+    public StreamingResponseBody exportUsers(ExportFormat format) {
+        return export(format, userRepository::streamAllViews, USER_COLUMNS, u -> Arrays.asList(
+                u.id(), u.username(), u.email(), u.role()));
+    }
+
+    // Same endpoint as catalogSnapshot, so a delta goes out as a streamed body too
+    public StreamingResponseBody catalogDelta(CatalogChanges changes) {
+        return out -> objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, changes);
+    }
+
+    /**
+     * The full-catalog answer of GET /api/books/changes: a CatalogChanges with {@code snapshot = true}
+     * and a {@code books} array, written book by book. The caller fixes {@code version} before the
+     * rows are read.
+     */
+    public StreamingResponseBody catalogSnapshot(String version) {
+        ObjectWriter bookWriter = objectMapper.writerFor(Book.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+            json.writeStartObject();
+            json.writeStringField("version", version);
+            json.writeBooleanField("snapshot", true);
+            json.writeArrayFieldStart("books");
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<Book> books = bookRepository.streamAll()) {
+                        books.forEach(book -> {
+                            try {
+                                bookWriter.writeValue(json, book);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.flush();
+        };
+    }
+
+    private <T> StreamingResponseBody export(ExportFormat format, Supplier<Stream<T>> query,
+                                             List<String> columns, Function<T, List<?>> csvRow) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == ExportFormat.CSV) {
+                Csv.writeRow(writer, columns);
+            }
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<T> rows = query.get()) {
+                        rows.forEach(row -> writeRow(writer, format, row, csvRow));
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; stop reading instead of draining the cursor
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private <T> void writeRow(Writer writer, ExportFormat format, T row, Function<T, List<?>> csvRow) {
+        try {
+            if (format == ExportFormat.CSV) {
+                Csv.writeRow(writer, csvRow.apply(row));
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize export row", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
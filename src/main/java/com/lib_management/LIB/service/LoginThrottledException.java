@@ -0,0 +1,11 @@
+package com.lib_management.LIB.service;
+
+/**
+ * Thrown when too many password checks are already running; the client should retry shortly.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    public LoginThrottledException() {
+        super("Too many logins in progress, please retry shortly");
+    }
+}
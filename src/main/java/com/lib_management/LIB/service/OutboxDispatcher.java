@@ -0,0 +1,140 @@
+package com.lib_management.LIB.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lib_management.LIB.entity.OutboxEvent;
+import com.lib_management.LIB.event.BorrowAuditEvent;
+import com.lib_management.LIB.event.BorrowAuditListener;
+import com.lib_management.LIB.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Drains the borrow outbox into the borrow_audit table and the {@link BorrowAuditListener}s.
+ *
+ * Each batch is one transaction: lock the oldest events, append them to borrow_audit, hand them to
+ * the listeners, delete them from the outbox. A failure anywhere rolls the batch back and it is
+ * delivered again, so the audit table gets every event exactly once and listeners at least once.
+ *
+ * The dispatcher pulls at its own pace and borrow requests never wait for it: when listeners are
+ * slow or failing the outbox absorbs the backlog, and after a failure retries back off up to
+ * library.audit.max-backoff instead of hammering a struggling consumer.
+ */
+@Service
+@ConditionalOnProperty(name = "library.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String INSERT_AUDIT = "INSERT INTO borrow_audit "
+            + "(event_id, type, borrow_id, book_id, user_id, penalty, occurred_at, recorded_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BorrowAuditListener> listeners;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long maxBackoffMillis;
+    private final Counter dispatched;
+    private final Counter failures;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile int consecutiveFailures;
+    private volatile long retryAt;
+
+    public OutboxDispatcher(OutboxEventRepository outboxRepository, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, List<BorrowAuditListener> listeners,
+                            MeterRegistry registry,
+                            @Value("${library.audit.batch-size:500}") int batchSize,
+                            @Value("${library.audit.dispatch-interval:1s}") Duration interval,
+                            @Value("${library.audit.max-backoff:1m}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.intervalMillis = interval.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.dispatched = registry.counter("library.audit.dispatched");
+        this.failures = registry.counter("library.audit.failures");
+    }
+
+    @Scheduled(fixedDelayString = "${library.audit.dispatch-interval:1s}",
+            initialDelayString = "${library.audit.dispatch-interval:1s}")
+    public void dispatchScheduled() {
+        if (System.currentTimeMillis() >= retryAt) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Delivers batches until the outbox is empty or a batch fails, and returns how many events were
+     * delivered. Does nothing if a dispatch is already running.
+     */
+    public long dispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long delivered = 0;
+        try {
+            int size;
+            do {
+                size = transactionTemplate.execute(status -> dispatchBatch());
+                delivered += size;
+            } while (size == batchSize);
+            consecutiveFailures = 0;
+            retryAt = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            int failed = ++consecutiveFailures;
+            long backoff = Math.min(maxBackoffMillis, intervalMillis << Math.min(failed, 20));
+            retryAt = System.currentTimeMillis() + backoff;
+            log.warn("Audit dispatch failed {} time(s) in a row, retrying in {} ms", failed, backoff, e);
+        } finally {
+            running.set(false);
+        }
+        return delivered;
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> batch = outboxRepository.findOldest(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<BorrowAuditEvent> events = batch.stream().map(OutboxEvent::toAuditEvent).toList();
+        Timestamp recordedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_AUDIT, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.id());
+            ps.setString(2, event.type().name());
+            ps.setLong(3, event.borrowId());
+            ps.setLong(4, event.bookId());
+            ps.setLong(5, event.userId());
+            ps.setDouble(6, event.penalty());
+            ps.setTimestamp(7, Timestamp.valueOf(event.occurredAt()));
+            ps.setTimestamp(8, recordedAt);
+        });
+        for (BorrowAuditListener listener : listeners) {
+            listener.onEvents(events);
+        }
+        outboxRepository.deleteAllByIdInBatch(events.stream().map(BorrowAuditEvent::id).toList());
+        dispatched.increment(events.size());
+        return events.size();
+    }
+}
@@ -0,0 +1,55 @@
+package com.lib_management.LIB.service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs BCrypt password checks under a fixed number of permits.
+ *
+ * A BCrypt match costs tens of milliseconds of CPU, so a burst of logins on the shared request
+ * threads would starve catalog and borrow traffic. At most {@code max-concurrent} checks run at a
+ * time; a login that cannot get a permit within {@code max-wait} is turned away with
+ * {@link LoginThrottledException} instead of queueing.
+ */
+@Service
+public class PasswordVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Semaphore permits;
+    private final long maxWaitMillis;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder,
+                            @Value("${library.auth.password-checks.max-concurrent:0}") int maxConcurrent,
+                            @Value("${library.auth.password-checks.max-wait:500ms}") Duration maxWait) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 means half the cores, leaving the rest for everything else
+        int limit = maxConcurrent > 0 ? maxConcurrent : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.permits = new Semaphore(limit, true);
+        this.maxWaitMillis = maxWait.toMillis();
+    }
+
+    // Includes the wait for a permit; throttled checks show up with exception=LoginThrottledException
+    @Timed("library.auth.password.check")
+    public boolean matches(String rawPassword, String encodedPassword) {
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new LoginThrottledException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException();
+        }
+        try {
+            return passwordEncoder.matches(rawPassword, encodedPassword);
+        } finally {
+            permits.release();
+        }
+    }
+}
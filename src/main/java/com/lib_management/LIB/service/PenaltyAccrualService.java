@@ -0,0 +1,116 @@
+package com.lib_management.LIB.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lib_management.LIB.dto.OverdueBorrow;
+import com.lib_management.LIB.entity.JobCheckpoint;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.JobCheckpointRepository;
+
+/**
+ * Brings the penalty of every open, overdue borrow up to date.
+ *
+ * Borrows are read in id order as (id, due date, rent) projections, one chunk per transaction,
+ * and written back with a JDBC batch update, so no Borrow entity is ever loaded. After each chunk
+ * the last processed id is stored in the same transaction; a run that dies part way through
+ * resumes from there instead of starting again.
+ */
+@Service
+public class PenaltyAccrualService {
+
+    static final String JOB_NAME = "penalty-accrual";
+
+    private static final Logger log = LoggerFactory.getLogger(PenaltyAccrualService.class);
+
+    private final BorrowRepository borrowRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PenaltyCalculator penaltyCalculator;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PenaltyAccrualService(BorrowRepository borrowRepository, JobCheckpointRepository checkpointRepository,
+                                 JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 PenaltyCalculator penaltyCalculator,
+                                 @Value("${library.penalty.chunk-size:1000}") int chunkSize) {
+        this.borrowRepository = borrowRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.penaltyCalculator = penaltyCalculator;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${library.penalty.accrual-cron:0 30 0 * * *}")
+    public void accrueNightly() {
+        accrue(LocalDate.now());
+    }
+
+    /**
+     * Accrues penalties as of the given date and returns how many borrows were updated in this call.
+     * Does nothing if a run for that date already completed or another run is in progress.
+     */
+    public long accrue(LocalDate asOf) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Penalty accrual already running, skipping");
+            return 0;
+        }
+        try {
+            JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME, null, 0L, false));
+            if (asOf.equals(checkpoint.getRunDate()) && checkpoint.isCompleted()) {
+                return 0;
+            }
+            // Resume an interrupted run for the same date; a new date starts from the beginning
+            long afterId = asOf.equals(checkpoint.getRunDate()) ? checkpoint.getLastId() : 0L;
+            if (afterId > 0) {
+                log.info("Resuming penalty accrual for {} after borrow {}", asOf, afterId);
+            }
+
+            long updated = 0;
+            List<OverdueBorrow> chunk;
+            do {
+                long from = afterId;
+                chunk = transactionTemplate.execute(status -> accrueChunk(asOf, from));
+                if (!chunk.isEmpty()) {
+                    updated += chunk.size();
+                    afterId = chunk.get(chunk.size() - 1).id();
+                }
+            } while (chunk.size() == chunkSize);
+
+            checkpointRepository.save(new JobCheckpoint(JOB_NAME, asOf, afterId, true));
+            log.info("Penalty accrual for {} updated {} borrows", asOf, updated);
+            return updated;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<OverdueBorrow> accrueChunk(LocalDate asOf, long afterId) {
+        List<OverdueBorrow> chunk = borrowRepository.findOverdueAfter(asOf, afterId, Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        // "return_date IS NULL" skips anything returned since the read; returnBook already set its final penalty
+        jdbcTemplate.batchUpdate("UPDATE borrow SET penalty = ? WHERE id = ? AND return_date IS NULL",
+                chunk, chunk.size(), (ps, row) -> {
+                    ps.setDouble(1, penaltyCalculator.penaltyFor(row.dueDate(), asOf, row.rentPerDay()));
+                    ps.setLong(2, row.id());
+                });
+        checkpointRepository.save(new JobCheckpoint(JOB_NAME, asOf, chunk.get(chunk.size() - 1).id(), false));
+        return chunk;
+    }
+}
@@ -0,0 +1,22 @@
+package com.lib_management.LIB.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * The single definition of an overdue penalty: one day's rent for every day past the due date.
+ * Used both when a book is returned and by the nightly accrual job.
+ */
+@Component
+public class PenaltyCalculator {
+
+    public double penaltyFor(LocalDate dueDate, LocalDate asOf, double rentPerDay) {
+        if (!asOf.isAfter(dueDate)) {
+            return 0.0;
+        }
+        long overdueDays = ChronoUnit.DAYS.between(dueDate, asOf);
+        return overdueDays * rentPerDay;
+    }
+}
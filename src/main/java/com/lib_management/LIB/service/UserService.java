@@ -1,10 +1,15 @@
 package com.lib_management.LIB.service;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.lib_management.LIB.config.CacheConfig;
+import com.lib_management.LIB.config.PaginationProperties;
+import com.lib_management.LIB.dto.CursorPage;
 import com.lib_management.LIB.entity.User;
-import com.lib_management.LIB.repository.BorrowRepository; // Correct
 import com.lib_management.LIB.repository.UserRepository;
 
 import jakarta.transaction.Transactional;
@@ -17,21 +22,31 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final BorrowRepository borrowRepository;
+    private final BorrowService borrowService;
+    private final PaginationProperties pagination;
+    private final Cache usersByUsername;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, BorrowRepository borrowRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, BorrowService borrowService,
+                       PaginationProperties pagination, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.borrowRepository = borrowRepository;
+        this.borrowService = borrowService;
+        this.pagination = pagination;
+        this.usersByUsername = cacheManager.getCache(CacheConfig.USERS_BY_USERNAME);
     }
 
     public User registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        usersByUsername.evict(saved.getUsername());
+        return saved;
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getAllUsers(Long after, Integer size) {
+        int pageSize = pagination.resolveSize(size);
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(
+                pagination.resolveCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, User::getId);
     }
 
     public Optional<User> getUserById(Long id) {
@@ -40,13 +55,17 @@ public class UserService {
 
     public User updateUser(Long id, User updatedUser) {
         return userRepository.findById(id).map(user -> {
+            String previousUsername = user.getUsername();
             user.setUsername(updatedUser.getUsername());
             user.setEmail(updatedUser.getEmail());
             user.setRole(updatedUser.getRole());
             if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
                 user.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
             }
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            usersByUsername.evict(previousUsername);
+            usersByUsername.evict(saved.getUsername());
+            return saved;
         }).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
@@ -55,10 +74,12 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Correct: Delete all borrow records for this user first
-        borrowRepository.deleteByUserId(user.getId());
+        // Delete all borrow records for this user first, returning any copies they still hold
+        borrowService.deleteAllOfUser(user.getId());
         
         // Then, delete the user
         userRepository.delete(user);
+        // Deferred to commit by the transaction-aware cache
+        usersByUsername.evict(user.getUsername());
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+-- Schema as previously created by Hibernate (ddl-auto=update) on MySQL.
+-- Databases that already have these tables are baselined at version 1 and skip this script.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('ADMIN', 'USER') NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+-- Book and borrow ids come from id_generators (see IdBlockAllocator), not AUTO_INCREMENT
+CREATE TABLE books (
+    id BIGINT NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    available BIT NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    rent_per_day DOUBLE NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE borrow (
+    id BIGINT NOT NULL,
+    borrow_date DATE,
+    due_date DATE,
+    penalty DOUBLE NOT NULL,
+    return_date DATE,
+    book_id BIGINT,
+    user_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_borrow_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_borrow_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE job_checkpoints (
+    job_name VARCHAR(255) NOT NULL,
+    completed BIT NOT NULL,
+    last_id BIGINT,
+    run_date DATE,
+    PRIMARY KEY (job_name)
+);
@@ -0,0 +1,7 @@
+-- Id blocks for books and borrows (see IdBlockAllocator). The allocator used to create this table
+-- on first use, so a baselined database may already have it.
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT NOT NULL,
+    PRIMARY KEY (sequence_name)
+);
@@ -0,0 +1,16 @@
+-- One index per query shape in BookRepository and BorrowRepository. Lookups and keyset pages by
+-- id use the primary keys; books by title, author or category are served from the in-memory
+-- search index and need no SQL index.
+
+-- Available-books page: available = true and id > ? order by id
+CREATE INDEX idx_books_available_id ON books (available, id);
+
+-- A user's borrows in id order (my-borrows) and deleting a user's history
+CREATE INDEX idx_borrow_user_id ON borrow (user_id, id);
+
+-- Borrows of a book
+CREATE INDEX idx_borrow_book_id ON borrow (book_id, id);
+
+-- Penalty accrual: return_date is null and due_date < ? and id > ? order by id.
+-- Open borrows are walked in id order straight from the index, due_date is checked without a row lookup
+CREATE INDEX idx_borrow_open_overdue ON borrow (return_date, id, due_date);
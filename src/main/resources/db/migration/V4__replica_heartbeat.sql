@@ -0,0 +1,9 @@
+-- Heartbeat for read-replica lag (see ReplicaLagMonitor). The primary stamps the row; once it has
+-- replicated, now minus the replica's copy of the stamp is how far the replica is behind.
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL,
+    beat_at BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, 0);
@@ -0,0 +1,26 @@
+-- Borrow audit trail (see BorrowAuditOutbox and OutboxDispatcher). BorrowService writes events to
+-- outbox_events in its own transaction; the dispatcher moves them in id order into the append-only
+-- borrow_audit table and deletes them from the outbox.
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL,
+    type ENUM('BORROWED', 'RETURNED', 'DELETED') NOT NULL,
+    borrow_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    penalty DOUBLE NOT NULL,
+    occurred_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- No foreign keys: the trail outlives the borrows, books and users it mentions
+CREATE TABLE borrow_audit (
+    event_id BIGINT NOT NULL,
+    type ENUM('BORROWED', 'RETURNED', 'DELETED') NOT NULL,
+    borrow_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    penalty DOUBLE NOT NULL,
+    occurred_at DATETIME(6) NOT NULL,
+    recorded_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (event_id)
+);
@@ -0,0 +1,12 @@
+-- Several physical copies per title. available_copies is the number on the shelf; available stays
+-- as "at least one copy on the shelf" for the available-books page and its index.
+-- Every existing row is a single copy.
+ALTER TABLE books ADD COLUMN total_copies INT NOT NULL DEFAULT 1;
+ALTER TABLE books ADD COLUMN available_copies INT NOT NULL DEFAULT 1;
+UPDATE books SET available_copies = 0 WHERE available = FALSE;
+
+-- Borrow and return move the counter with conditional updates; this is the backstop
+ALTER TABLE books ADD CONSTRAINT chk_books_copies CHECK (available_copies >= 0 AND available_copies <= total_copies);
+
+-- Optimistic lock on borrows (see Borrow.version)
+ALTER TABLE borrow ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
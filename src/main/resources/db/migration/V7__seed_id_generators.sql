@@ -0,0 +1,14 @@
+-- Generator rows for every @PooledId table, so the allocator only ever moves an existing row forward.
+-- Creating them on first use raced when two instances reserved their first block at the same time.
+-- Rows the allocator already created are left alone.
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'books', COALESCE(MAX(id), 0) + 1 FROM books
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'books');
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'borrow', COALESCE(MAX(id), 0) + 1 FROM borrow
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'borrow');
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'outbox_events', COALESCE(MAX(id), 0) + 1 FROM outbox_events
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'outbox_events');
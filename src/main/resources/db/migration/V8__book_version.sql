@@ -0,0 +1,2 @@
+-- Row version of books (see Book.version), bumped by entity updates and the copy counter updates alike
+ALTER TABLE books ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
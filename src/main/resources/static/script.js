@@ -16,6 +16,8 @@ document.addEventListener('DOMContentLoaded', () => {
     const welcomeMessage = document.getElementById('welcome-message');
 
     let isRegisterMode = false;
+    // Books currently on screen, kept up to date from the catalog event stream; null on other views
+    let bookView = null;
 
     // --- Authentication and UI State Management ---
 
@@ -103,9 +105,31 @@ document.addEventListener('DOMContentLoaded', () => {
 
     // --- API Calls ---
 
+    // Swaps the stored refresh token for a new access token; false if the user has to log in again
+    async function refreshAccessToken() {
+        const refreshToken = localStorage.getItem('refreshToken');
+        if (!refreshToken) return false;
+        const response = await fetch(`${AUTH_BASE_URL}/refresh`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ refreshToken })
+        });
+        if (!response.ok) {
+            localStorage.removeItem('refreshToken');
+            return false;
+        }
+        const data = await response.json();
+        localStorage.setItem('jwtToken', data.token);
+        return true;
+    }
+
     async function fetchData(url, options = {}) {
     try {
-        const response = await fetch(url, { ...options, headers: { ...getHeaders(), ...options.headers } });
+        let response = await fetch(url, { ...options, headers: { ...getHeaders(), ...options.headers } });
+        // Expired access token: renew it once and retry instead of sending the user back to login
+        if (response.status === 401 && getAuthToken() && await refreshAccessToken()) {
+            response = await fetch(url, { ...options, headers: { ...getHeaders(), ...options.headers } });
+        }
         
         // If the request was successful but has no content, just return.
         if (response.status === 204 || response.headers.get('Content-Length') === '0') {
@@ -133,20 +157,29 @@ document.addEventListener('DOMContentLoaded', () => {
 
     // --- Dynamic Content Rendering ---
 
-    async function renderBooks() {
-        try {
-            const books = await fetchData(`${API_BASE_URL}/books`);
-            const isAdmin = getUserRole() === 'ADMIN';
+    // List endpoints return { items, nextCursor }; pass nextCursor back as ?after= to get the next page
+    function pageUrl(url, after) {
+        return after ? `${url}${url.includes('?') ? '&' : '?'}after=${after}` : url;
+    }
 
-            let bookListHtml = '';
-            books.forEach(book => {
-                bookListHtml += `
-                    <div class="card">
+    function loadMoreButton(nextCursor) {
+        return nextCursor ? `<button id="load-more-btn" class="action-button">Load More</button>` : '';
+    }
+
+    function attachLoadMore(nextCursor, loadNext) {
+        if (nextCursor) {
+            document.getElementById('load-more-btn').addEventListener('click', loadNext);
+        }
+    }
+
+    function bookCardHtml(book, isAdmin) {
+        return `
+                    <div class="card" data-book-id="${book.id}">
                         <h3>${book.title}</h3>
                         <p><strong>Author:</strong> ${book.author}</p>
                         <p><strong>Category:</strong> ${book.category}</p>
                         <p><strong>Rent:</strong> $${book.rentPerDay} / day</p>
-                        <p><strong>Available:</strong> ${book.available ? '✅ Yes' : '❌ No'}</p>
+                        <p><strong>Available:</strong> ${book.available ? '✅' : '❌'} ${book.availableCopies} of ${book.totalCopies}</p>
                         <div class="card-actions">
                             ${isAdmin ? `
                                 <button class="edit-btn" data-id="${book.id}">Edit</button>
@@ -163,7 +196,14 @@ document.addEventListener('DOMContentLoaded', () => {
                         </div>
                     </div>
                 `;
-            });
+    }
+
+    async function renderBooks(after = null, loaded = []) {
+        try {
+            const page = await fetchData(pageUrl(`${API_BASE_URL}/books`, after));
+            const books = loaded.concat(page.items);
+            const isAdmin = getUserRole() === 'ADMIN';
+            const bookListHtml = books.map(book => bookCardHtml(book, isAdmin)).join('');
 
             mainContent.innerHTML = `
                 <div class="section-header">
@@ -171,16 +211,21 @@ document.addEventListener('DOMContentLoaded', () => {
                     ${isAdmin ? `<button id="add-book-btn" class="action-button">Add New Book</button>` : ''}
                 </div>
                 <div class="list-container book-list">${bookListHtml}</div>
+                ${loadMoreButton(page.nextCursor)}
             `;
+            bookView = { books: new Map(books.map(book => [book.id, book])), hasMore: !!page.nextCursor, isAdmin };
             attachBookEventListeners();
+            attachLoadMore(page.nextCursor, () => renderBooks(page.nextCursor, books));
         } catch (error) {
             mainContent.innerHTML = `<p class="error-message">Failed to load books: ${error.message}</p>`;
         }
     }
 
-    async function renderUsers() {
+    async function renderUsers(after = null, loaded = []) {
+        bookView = null;
         try {
-            const users = await fetchData(`${API_BASE_URL}/users/all`);
+            const page = await fetchData(pageUrl(`${API_BASE_URL}/users/all`, after));
+            const users = loaded.concat(page.items);
             let userListHtml = '';
             users.forEach(user => {
                 userListHtml += `
@@ -199,22 +244,26 @@ document.addEventListener('DOMContentLoaded', () => {
                     <h2 class="section-title">Users</h2>
                 </div>
                 <div class="list-container user-list">${userListHtml}</div>
+                ${loadMoreButton(page.nextCursor)}
             `;
             attachUserEventListeners();
+            attachLoadMore(page.nextCursor, () => renderUsers(page.nextCursor, users));
         } catch (error) {
             mainContent.innerHTML = `<p class="error-message">Failed to load users: ${error.message}</p>`;
         }
     }
 
-    async function renderBorrows() {
+    async function renderBorrows(after = null, loaded = []) {
+        bookView = null;
         try {
-            const borrows = await fetchData(`${API_BASE_URL}/borrows/all`);
+            const page = await fetchData(pageUrl(`${API_BASE_URL}/borrows/all`, after));
+            const borrows = loaded.concat(page.items);
             let borrowListHtml = '';
             borrows.forEach(borrow => {
                 borrowListHtml += `
                     <div class="card">
-                        <h3>${borrow.book.title}</h3>
-                        <p><strong>Borrowed by:</strong> ${borrow.user.username}</p>
+                        <h3>${borrow.bookTitle}</h3>
+                        <p><strong>Borrowed by:</strong> ${borrow.username}</p>
                         <p><strong>Borrow Date:</strong> ${borrow.borrowDate}</p>
                         <p><strong>Due Date:</strong> ${borrow.dueDate}</p>
                         <p><strong>Return Date:</strong> ${borrow.returnDate || 'N/A'}</p>
@@ -230,23 +279,19 @@ document.addEventListener('DOMContentLoaded', () => {
                     <h2 class="section-title">All Borrows</h2>
                 </div>
                 <div class="list-container borrow-list">${borrowListHtml}</div>
+                ${loadMoreButton(page.nextCursor)}
             `;
             attachBorrowEventListeners();
+            attachLoadMore(page.nextCursor, () => renderBorrows(page.nextCursor, borrows));
         } catch (error) {
             mainContent.innerHTML = `<p class="error-message">Failed to load borrows: ${error.message}</p>`;
         }
     }
 
-    async function renderMyBorrows() {
-    try {
-        // The backend now gets the user from the token, so we don't need to pass the ID.
-        const borrows = await fetchData(`${API_BASE_URL}/borrows/user/my-borrows`);
-        
-        let borrowListHtml = '';
-        borrows.forEach(borrow => {
-            borrowListHtml += `
+    function myBorrowCardHtml(borrow) {
+        return `
                 <div class="card">
-                    <h3>${borrow.book.title}</h3>
+                    <h3>${borrow.bookTitle}</h3>
                     <p><strong>Borrow Date:</strong> ${borrow.borrowDate}</p>
                     <p><strong>Due Date:</strong> ${borrow.dueDate}</p>
                     <p><strong>Status:</strong> ${borrow.returnDate ? 'Returned' : 'Outstanding'}</p>
@@ -256,7 +301,15 @@ document.addEventListener('DOMContentLoaded', () => {
                     </div>
                 </div>
             `;
-        });
+    }
+
+    async function renderMyBorrows() {
+    bookView = null;
+    try {
+        // The backend now gets the user from the token, so we don't need to pass the ID.
+        const borrows = await fetchData(`${API_BASE_URL}/borrows/user/my-borrows`);
+        
+        const borrowListHtml = borrows.map(myBorrowCardHtml).join('');
         mainContent.innerHTML = `
             <div class="section-header">
                 <h2 class="section-title">My Borrowed Books</h2>
@@ -284,6 +337,7 @@ document.addEventListener('DOMContentLoaded', () => {
 
     document.getElementById('nav-logout').addEventListener('click', () => {
         localStorage.removeItem('jwtToken');
+        localStorage.removeItem('refreshToken');
         updateUIForRole();
         mainContent.innerHTML = `<h2 class="welcome-heading">You have been logged out.</h2>`;
     });
@@ -330,6 +384,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 }
                 const data = await response.json();
                 localStorage.setItem('jwtToken', data.token);
+                localStorage.setItem('refreshToken', data.refreshToken);
                 toggleModal(authModal, false);
                 updateUIForRole();
                 renderBooks();
@@ -341,37 +396,109 @@ document.addEventListener('DOMContentLoaded', () => {
     });
 
     // Main Nav Buttons
-    document.getElementById('nav-books').addEventListener('click', renderBooks);
-    document.getElementById('nav-users').addEventListener('click', renderUsers);
-    document.getElementById('nav-borrows').addEventListener('click', renderBorrows);
+    document.getElementById('nav-books').addEventListener('click', () => renderBooks());
+    document.getElementById('nav-users').addEventListener('click', () => renderUsers());
+    document.getElementById('nav-borrows').addEventListener('click', () => renderBorrows());
     document.getElementById('nav-my-borrows').addEventListener('click', renderMyBorrows);
 
     // Book Form
     bookForm.addEventListener('submit', async (e) => {
         e.preventDefault();
         const id = document.getElementById('book-id').value;
+        const copies = parseInt(document.getElementById('book-copies').value, 10);
         const bookData = {
             title: document.getElementById('book-title').value,
             author: document.getElementById('book-author').value,
             category: document.getElementById('book-category').value,
-            rentPerDay: parseFloat(document.getElementById('book-rent').value),
-            available: document.getElementById('book-available').checked
+            rentPerDay: parseFloat(document.getElementById('book-rent').value)
         };
         try {
+            let saved;
             if (id) {
-                await fetchData(`${API_BASE_URL}/books/admin/${id}`, { method: 'PUT', body: JSON.stringify(bookData) });
+                saved = await fetchData(`${API_BASE_URL}/books/admin/${id}`, { method: 'PUT', body: JSON.stringify(bookData) });
+                // Copies have their own endpoint, so an edit never races with borrows
+                if (copies !== saved.totalCopies) {
+                    saved = await fetchData(`${API_BASE_URL}/books/admin/${id}/copies?total=${copies}`, { method: 'PUT' });
+                }
             } else {
-                await fetchData(`${API_BASE_URL}/books/admin`, { method: 'POST', body: JSON.stringify(bookData) });
+                saved = await fetchData(`${API_BASE_URL}/books/admin`, {
+                    method: 'POST', body: JSON.stringify({ ...bookData, totalCopies: copies, available: true })
+                });
             }
             toggleModal(bookModal, false);
-            renderBooks();
+            upsertBook(saved);
         } catch (error) {
             document.getElementById('book-message').textContent = `Error: ${error.message}`;
         }
     });
 
-    // Attach dynamic event listeners after rendering
+    // --- Local updates to the book list ---
+
+    // Replaces the book's card, or appends it if the whole catalog is on screen and it is new
+    function upsertBook(book) {
+        if (!bookView) return;
+        const card = mainContent.querySelector(`.card[data-book-id="${book.id}"]`);
+        if (card) {
+            card.outerHTML = bookCardHtml(book, bookView.isAdmin);
+        } else if (!bookView.hasMore) {
+            mainContent.querySelector('.book-list').insertAdjacentHTML('beforeend', bookCardHtml(book, bookView.isAdmin));
+        } else {
+            return; // Not loaded yet; it will come with a later page
+        }
+        bookView.books.set(book.id, book);
+    }
+
+    function removeBook(id) {
+        if (!bookView) return;
+        bookView.books.delete(id);
+        const card = mainContent.querySelector(`.card[data-book-id="${id}"]`);
+        if (card) card.remove();
+    }
+
+    function setAvailability(id, available, availableCopies) {
+        const book = bookView && bookView.books.get(id);
+        if (book) upsertBook({ ...book, available, availableCopies });
+    }
+
+    // --- Catalog event stream ---
+
+    // Availability flips and catalog edits are pushed as they happen, so lists never need re-fetching.
+    // Event ids are "epoch-version"; an older event for a book than one already applied is ignored.
+    // A new epoch means the server restarted and counts versions from zero again
+    function connectCatalogEvents() {
+        const source = new EventSource(`${API_BASE_URL}/books/events`);
+        const appliedVersions = new Map();
+        let appliedEpoch = null;
+        let connectedBefore = false;
+
+        function apply(event, handler) {
+            const data = JSON.parse(event.data);
+            const [epoch, counter] = event.lastEventId.split('-');
+            if (epoch !== appliedEpoch) {
+                appliedVersions.clear();
+                appliedEpoch = epoch;
+            }
+            const version = Number(counter);
+            if (version <= (appliedVersions.get(data.id) || 0)) return;
+            appliedVersions.set(data.id, version);
+            handler(data);
+        }
+
+        source.addEventListener('availability', e => apply(e, data => setAvailability(data.id, data.available, data.availableCopies)));
+        source.addEventListener('book', e => apply(e, upsertBook));
+        source.addEventListener('deleted', e => apply(e, data => removeBook(data.id)));
+        // Too far behind, a bulk import, or reconnected after a drop: reload once
+        source.addEventListener('resync', () => { if (bookView) renderBooks(); });
+        source.addEventListener('open', () => {
+            if (connectedBefore && bookView) renderBooks();
+            connectedBefore = true;
+        });
+    }
+
+    // Attach dynamic event listeners after rendering. Book cards are replaced in place by the
+    // event stream, so their buttons are handled by one delegated listener on the list
     function attachBookEventListeners() {
+        const bookList = mainContent.querySelector('.book-list');
         if (getUserRole() === 'ADMIN') {
             document.getElementById('add-book-btn').addEventListener('click', () => {
                 document.getElementById('book-modal-title').textContent = 'Add New Book';
@@ -379,8 +506,8 @@ document.addEventListener('DOMContentLoaded', () => {
                 document.getElementById('book-id').value = '';
                 toggleModal(bookModal, true);
             });
-            document.querySelectorAll('.edit-btn').forEach(btn => {
-                btn.addEventListener('click', async (e) => {
+            bookList.addEventListener('click', async (e) => {
+                if (e.target.classList.contains('edit-btn')) {
                     const id = e.target.dataset.id;
                     const book = await fetchData(`${API_BASE_URL}/books/${id}`);
                     document.getElementById('book-modal-title').textContent = 'Edit Book';
@@ -389,49 +516,44 @@ document.addEventListener('DOMContentLoaded', () => {
                     document.getElementById('book-author').value = book.author;
                     document.getElementById('book-category').value = book.category;
                     document.getElementById('book-rent').value = book.rentPerDay;
-                    document.getElementById('book-available').checked = book.available;
+                    document.getElementById('book-copies').value = book.totalCopies;
                     toggleModal(bookModal, true);
-                });
-            });
-            document.querySelectorAll('.delete-btn').forEach(btn => {
-                btn.addEventListener('click', async (e) => {
-                    const id = e.target.dataset.id;
+                } else if (e.target.classList.contains('delete-btn')) {
+                    const id = Number(e.target.dataset.id);
                     if (confirm('Are you sure you want to delete this book?')) {
                         try {
                             await fetchData(`${API_BASE_URL}/books/admin/${id}`, { method: 'DELETE' });
-                            renderBooks();
+                            removeBook(id);
                         } catch (error) {
                             alert(`Error deleting book: ${error.message}`);
                         }
                     }
-                });
+                }
             });
         }
         if (getUserRole() === 'USER') {
-            document.querySelectorAll('.borrow-btn').forEach(btn => {
-                btn.addEventListener('click', async (e) => {
-                    const bookId = e.target.dataset.id;
-                    const daysInput = document.getElementById(`days-${bookId}`);
-                    const borrowDays = daysInput ? daysInput.value : 14; 
-                    
-                    try {
-                        const borrowedBook = await fetchData(`${API_BASE_URL}/borrows/user/borrow?bookId=${bookId}&days=${borrowDays}`, { method: 'POST' });
-                        alert(`Successfully borrowed "${borrowedBook.book.title}"! Due date: ${borrowedBook.dueDate}`);
-                        renderBooks();
-                    } catch (error) {
-                        alert(`Error borrowing book: ${error.message}`);
-                    }
-                });
+            bookList.addEventListener('click', async (e) => {
+                if (!e.target.classList.contains('borrow-btn')) return;
+                const bookId = e.target.dataset.id;
+                const daysInput = document.getElementById(`days-${bookId}`);
+                const borrowDays = daysInput ? daysInput.value : 14;
+
+                try {
+                    const borrowedBook = await fetchData(`${API_BASE_URL}/borrows/user/borrow?bookId=${bookId}&days=${borrowDays}`, { method: 'POST' });
+                    alert(`Successfully borrowed "${borrowedBook.bookTitle}"! Due date: ${borrowedBook.dueDate}`);
+                    setAvailability(borrowedBook.bookId, false);
+                } catch (error) {
+                    alert(`Error borrowing book: ${error.message}`);
+                }
             });
-            
-            document.querySelectorAll('.days-input').forEach(input => {
-                input.addEventListener('input', (e) => {
-                    const bookId = e.target.id.split('-')[1];
-                    const days = e.target.value;
-                    const rentPerDay = parseFloat(e.target.dataset.rent);
-                    const totalCost = (days * rentPerDay).toFixed(2);
-                    document.getElementById(`cost-${bookId}`).textContent = `$${totalCost}`;
-                });
+
+            bookList.addEventListener('input', (e) => {
+                if (!e.target.classList.contains('days-input')) return;
+                const bookId = e.target.id.split('-')[1];
+                const days = e.target.value;
+                const rentPerDay = parseFloat(e.target.dataset.rent);
+                const totalCost = (days * rentPerDay).toFixed(2);
+                document.getElementById(`cost-${bookId}`).textContent = `$${totalCost}`;
             });
         }
     }
@@ -443,7 +565,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 if (confirm('Are you sure you want to delete this user?')) {
                     try {
                         await fetchData(`${API_BASE_URL}/users/admin/${id}`, { method: 'DELETE' });
-                        renderUsers();
+                        e.target.closest('.card').remove();
                     } catch (error) {
                         alert(`Error deleting user: ${error.message}`);
                     }
@@ -459,7 +581,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 if (confirm('Are you sure you want to delete this borrow record? This will return the book to available status.')) {
                     try {
                         await fetchData(`${API_BASE_URL}/borrows/admin/${borrowId}`, { method: 'DELETE' });
-                        renderBorrows();
+                        e.target.closest('.card').remove();
                     } catch (error) {
                         alert(`Error deleting borrow record: ${error.message}`);
                     }
@@ -474,8 +596,8 @@ document.addEventListener('DOMContentLoaded', () => {
                 const borrowId = e.target.dataset.id;
                 try {
                     const returnedBorrow = await fetchData(`${API_BASE_URL}/borrows/user/return/${borrowId}`, { method: 'POST' });
-                    alert(`Successfully returned "${returnedBorrow.book.title}". Penalty: $${returnedBorrow.penalty.toFixed(2)}`);
-                    renderMyBorrows();
+                    alert(`Successfully returned "${returnedBorrow.bookTitle}". Penalty: $${returnedBorrow.penalty.toFixed(2)}`);
+                    e.target.closest('.card').outerHTML = myBorrowCardHtml(returnedBorrow);
                 } catch (error) {
                     alert(`Error returning book: ${error.message}`);
                 }
@@ -485,6 +607,7 @@ document.addEventListener('DOMContentLoaded', () => {
 
     // Initial page load
     updateUIForRole();
+    connectCatalogEvents();
     if (getAuthToken()) {
         renderBooks();
     } else {
@@ -0,0 +1,44 @@
+package com.lib_management.LIB.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.ExpiredJwtException;
+
+class JwtUtilTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() {
+        JwtUtil jwtUtil = new JwtUtil("", 100, Duration.ofMinutes(1), Duration.ofDays(1), now::get);
+        String token = jwtUtil.generateToken("alice", "USER");
+
+        assertEquals("alice", jwtUtil.verify(token).username());
+        now.addAndGet(Duration.ofSeconds(30).toMillis());
+        assertEquals("USER", jwtUtil.verify(token).role());
+
+        now.addAndGet(Duration.ofSeconds(31).toMillis());
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void fullCacheStillVerifiesEveryToken() {
+        JwtUtil jwtUtil = new JwtUtil("", 10, Duration.ofMinutes(1), Duration.ofDays(1), now::get);
+        for (int i = 0; i < 100; i++) {
+            String token = jwtUtil.generateToken("user" + i, "USER");
+            assertEquals("user" + i, jwtUtil.extractUsername(token));
+        }
+        String refresh = jwtUtil.generateRefreshToken("bob", "ADMIN");
+        assertTrue(jwtUtil.verify(refresh).refresh());
+        assertTrue(jwtUtil.validateToken(refresh));
+    }
+}
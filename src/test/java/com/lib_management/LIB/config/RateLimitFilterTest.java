@@ -0,0 +1,115 @@
+package com.lib_management.LIB.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.FilterChain;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final JwtUtil jwtUtil = new JwtUtil("", 100, Duration.ofHours(1), Duration.ofDays(1));
+    private final RateLimitFilter filter = new RateLimitFilter(jwtUtil, new SimpleMeterRegistry(),
+            List.of("POST /auth/login=3/1m", "/api/books/search/**=2/1s"), Duration.ofMinutes(10), 4,
+            now::get);
+    private final FilterChain chain = (request, response) -> { };
+
+    @Test
+    void burstThenRefillPerAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("POST", "/auth/login", "10.0.0.1", null).getStatus());
+        }
+        MockHttpServletResponse rejected = send("POST", "/auth/login", "10.0.0.1", null);
+        assertEquals(429, rejected.getStatus());
+        // One request every 20 s
+        assertEquals("20", rejected.getHeader("Retry-After"));
+        assertEquals(200, send("POST", "/auth/login", "10.0.0.2", null).getStatus());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertEquals(200, send("POST", "/auth/login", "10.0.0.1", null).getStatus());
+        assertEquals(429, send("POST", "/auth/login", "10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    void callersWithAValidTokenAreLimitedByUsername() throws Exception {
+        String token = jwtUtil.generateToken("reader", "USER");
+        assertEquals(200, send("GET", "/api/books/search/title", "10.0.0.1", token).getStatus());
+        assertEquals(200, send("GET", "/api/books/search", "10.0.0.2", token).getStatus());
+        assertEquals(429, send("GET", "/api/books/search/title", "10.0.0.3", token).getStatus());
+
+        // A forged token counts against the address, not the user it names
+        assertEquals(200, send("GET", "/api/books/search", "10.0.0.3", "not-a-token").getStatus());
+    }
+
+    @Test
+    void unmatchedRequestsAreNotLimited() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send("GET", "/auth/login", "10.0.0.1", null).getStatus());
+            assertEquals(200, send("GET", "/api/books/1", "10.0.0.1", null).getStatus());
+        }
+        assertEquals(0, filter.bucketCount());
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws Exception {
+        send("POST", "/auth/login", "10.0.0.1", null);
+        send("GET", "/api/books/search", "10.0.0.1", null);
+        assertEquals(2, filter.bucketCount());
+
+        // The login bucket is full again after 20 s, the search one after half a second;
+        // each goes once it has been full for the idle timeout
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10) + TimeUnit.SECONDS.toNanos(1));
+        filter.evictIdle();
+        assertEquals(1, filter.bucketCount());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        filter.evictIdle();
+        assertEquals(0, filter.bucketCount());
+    }
+
+    @Test
+    void ipv6AddressesShareTheirSlash64() throws Exception {
+        assertEquals(200, send("GET", "/api/books/search", "2001:db8:0:0:0:0:0:1", null).getStatus());
+        assertEquals(200, send("GET", "/api/books/search", "2001:db8::ffff", null).getStatus());
+        assertEquals(429, send("GET", "/api/books/search", "2001:db8::1:2:3:4", null).getStatus());
+        assertEquals(200, send("GET", "/api/books/search", "2001:db8:0:1::1", null).getStatus());
+        assertEquals(2, filter.bucketCount());
+    }
+
+    @Test
+    void anonymousCallersShareAnOverflowBucketOnceTheLimitIsReached() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(200, send("GET", "/api/books/search", "10.0.0." + i, null).getStatus());
+        }
+        // Full: every new address now draws from one bucket, whatever it sprays
+        assertEquals(200, send("GET", "/api/books/search", "10.0.1.1", null).getStatus());
+        assertEquals(200, send("GET", "/api/books/search", "10.0.1.2", null).getStatus());
+        assertEquals(429, send("GET", "/api/books/search", "10.0.1.3", null).getStatus());
+        assertEquals(5, filter.bucketCount());
+        // Callers that already had a bucket keep it, and users always get their own
+        assertEquals(200, send("GET", "/api/books/search", "10.0.0.1", null).getStatus());
+        assertEquals(200, send("GET", "/api/books/search", "10.0.1.4", jwtUtil.generateToken("reader", "USER")).getStatus());
+        assertEquals(6, filter.bucketCount());
+    }
+
+    private MockHttpServletResponse send(String method, String path, String address, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(address);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,151 @@
+package com.lib_management.LIB.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.service.BookService;
+
+/**
+ * Primary and replica are two separate embedded databases with nothing replicating between them,
+ * so a row written to only one of them shows which database served a read. Replication of the
+ * heartbeat is simulated by stamping the replica's copy directly.
+ */
+@SpringBootTest(properties = {
+        "library.datasource.replica.url=jdbc:h2:mem:library_replica_${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.max-lag=5s",
+        // Checks are triggered by the tests
+        "library.datasource.replica.heartbeat-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReplicaRoutingTest {
+
+    private static final long REPLICA_BOOK_ID = 1_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private Book primaryBook;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        primaryBook = bookRepository.save(Book.builder()
+                .title("On primary").author("Author").category("Fiction").rentPerDay(1.0).available(true).build());
+        replica.update("DELETE FROM books");
+        replica.update("INSERT INTO books (id, author, available, category, rent_per_day, title) VALUES (?, ?, ?, ?, ?, ?)",
+                REPLICA_BOOK_ID, "Author", true, "Fiction", 1.0, "On replica");
+    }
+
+    @Test
+    void caughtUpReplicaServesCatalogReads() throws Exception {
+        replicaBehindBy(0);
+
+        assertEquals(List.of("On replica"), titles(bookService.getAllBooks(null, 100).items()));
+        assertEquals(List.of("On replica"), titles(bookService.getAvailableBooks(null, 100).items()));
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.containsString("On replica")))
+                .andExpect(content().string(Matchers.not(Matchers.containsString("On primary"))))
+                // The replica may be behind the current catalog version, so it is not offered as the tag
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws Exception {
+        replicaBehindBy(60_000);
+
+        List<String> titles = titles(bookService.getAllBooks(null, 100).items());
+        assertTrue(titles.contains("On primary"), titles.toString());
+        assertFalse(titles.contains("On replica"), titles.toString());
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.containsString("On primary")))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void cachedBookLookupsReadThePrimary() throws Exception {
+        replicaBehindBy(0);
+
+        assertTrue(bookService.getBookById(primaryBook.getId()).isPresent());
+        assertTrue(bookService.getBookById(REPLICA_BOOK_ID).isEmpty());
+        mockMvc.perform(get("/api/books/" + primaryBook.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.containsString("On primary")))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void writesAndOtherReadsStayOnPrimary() {
+        replicaBehindBy(0);
+
+        bookService.addBook(Book.builder()
+                .title("Written").author("Author").category("Fiction").rentPerDay(1.0).available(true).build());
+        assertEquals(1, count(primary, "Written"));
+        assertEquals(0, count(replica, "Written"));
+
+        // A read-only repository transaction outside @ReplicaRead
+        assertTrue(bookRepository.findById(primaryBook.getId()).isPresent());
+    }
+
+    // Stands in for replication having delivered a heartbeat stamped the given time ago
+    private void replicaBehindBy(long millis) {
+        replica.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis() - millis);
+        lagMonitor.check();
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).distinct().toList();
+    }
+
+    private static int count(JdbcTemplate jdbc, String title) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM books WHERE title = ?", Integer.class, title);
+    }
+}
@@ -0,0 +1,165 @@
+package com.lib_management.LIB.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lib_management.LIB.config.JwtUtil;
+import com.lib_management.LIB.dto.ImportStatus;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.service.CatalogChangeLog;
+import com.lib_management.LIB.support.SqlStatementCounter;
+import com.lib_management.LIB.support.StatementBudgets;
+
+// The counter is global, so keep the outbox dispatcher's polls out of it
+@SpringBootTest(properties = "library.audit.dispatch-interval=1h")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import(SqlStatementCounter.class)
+class BookControllerStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    private StatementBudgets budgets;
+    private String admin;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        budgets = new StatementBudgets(mockMvc, counter, cacheManager, () -> bookRepository.saveAll(books(60)));
+        admin = "Bearer " + jwtUtil.generateToken("book-budget-admin", "ADMIN");
+        bookRepository.saveAll(books(5));
+        book = bookRepository.save(books(1).get(0));
+    }
+
+    @Test
+    void reads() throws Exception {
+        budgets.assertWithin(1, () -> get("/api/books/" + book.getId()));
+        budgets.assertWithin(1, () -> get("/api/books"));
+        budgets.assertWithin(1, () -> get("/api/books/available"));
+        // Searches are served from the in-memory index
+        budgets.assertWithin(0, () -> get("/api/books/search/title").param("title", "budget"));
+        budgets.assertWithin(0, () -> get("/api/books/search").param("q", "budget"));
+        budgets.assertWithin(0, () -> get("/api/books/search/category").param("category", "fiction"));
+        // Category counts are kept in memory too
+        budgets.assertWithin(0, () -> get("/api/books/facets"));
+        budgets.assertWithin(0, () -> get("/api/books/search").param("q", "budget").param("facets", "true"));
+    }
+
+    // Delta sync is answered from the in-memory change log; only a snapshot reads the table
+    @Test
+    void sync() throws Exception {
+        budgets.assertWithin(0, () -> get("/api/books/changes").param("since", changeLog.latestToken()));
+        budgets.assertWithin(1, () -> get("/api/books/changes"));
+    }
+
+    @Test
+    void snapshotIsStreamedInTheChangesShape() throws Exception {
+        String version = changeLog.latestToken();
+        MvcResult started = mockMvc.perform(get("/api/books/changes").param("since", "stale-1")).andReturn();
+        JsonNode body = objectMapper.readTree(mockMvc.perform(asyncDispatch(started)).andReturn()
+                .getResponse().getContentAsString(StandardCharsets.UTF_8));
+
+        assertEquals(version, body.get("version").asText());
+        assertTrue(body.get("snapshot").asBoolean());
+        assertEquals(bookRepository.count(), body.get("books").size());
+        assertEquals(book.getTitle(), body.findValues("title").stream()
+                .map(JsonNode::asText).filter(book.getTitle()::equals).findFirst().orElse(null));
+    }
+
+    @Test
+    void export() throws Exception {
+        budgets.assertWithin(1, () -> get("/api/books/admin/export").header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/books/admin/export").param("format", "csv").header("Authorization", admin));
+    }
+
+    @Test
+    void writes() throws Exception {
+        budgets.assertWithin(1, () -> post("/api/books/admin").header("Authorization", admin)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(books(1).get(0))));
+        budgets.assertWithin(2, () -> put("/api/books/admin/" + book.getId()).header("Authorization", admin)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(
+                        book.toBuilder().title("Renamed " + System.nanoTime()).build())));
+        budgets.assertWithin(2, () -> delete("/api/books/admin/" + bookRepository.save(books(1).get(0)).getId())
+                .header("Authorization", admin));
+    }
+
+    // The import finishes in the background; its statements are counted until the job is done
+    @Test
+    void importRunsInConstantStatementsPerChunk() throws Exception {
+        StringBuilder csv = new StringBuilder("title,author,category,rentPerDay,available\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append("Imported ").append(i).append(",Author,Fiction,1.5,true\n");
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "books.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        counter.reset();
+        String body = mockMvc.perform(multipart("/api/books/admin/import").file(file).header("Authorization", admin))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("jobId").asText();
+        ImportStatus status;
+        do {
+            Thread.sleep(50);
+            status = objectMapper.readValue(mockMvc.perform(get("/api/books/admin/import/" + jobId)
+                    .header("Authorization", admin)).andReturn().getResponse().getContentAsString(), ImportStatus.class);
+        } while (status.state() == ImportStatus.State.QUEUED || status.state() == ImportStatus.State.RUNNING);
+
+        assertTrue(status.imported() == 40, "import did not complete: " + status);
+        // One batched insert for a single chunk
+        assertTrue(counter.count() <= 1, "import executed " + counter.count() + " statements");
+    }
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(Book.builder().title("Budget book " + i).author("Author " + i).category("Fiction")
+                    .rentPerDay(1.0).available(true).build());
+        }
+        return books;
+    }
+}
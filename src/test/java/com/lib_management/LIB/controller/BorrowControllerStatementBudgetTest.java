@@ -0,0 +1,159 @@
+package com.lib_management.LIB.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.config.JwtUtil;
+import com.lib_management.LIB.dto.BatchBorrowRequest;
+import com.lib_management.LIB.dto.BatchReturnRequest;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.JobCheckpointRepository;
+import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.support.SqlStatementCounter;
+import com.lib_management.LIB.support.StatementBudgets;
+
+// The counter is global, so keep the outbox dispatcher's polls out of it
+@SpringBootTest(properties = "library.audit.dispatch-interval=1h")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import(SqlStatementCounter.class)
+class BorrowControllerStatementBudgetTest {
+
+    private static final String READER = "borrow-budget-reader";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private StatementBudgets budgets;
+    private User reader;
+    private String admin;
+    private String user;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.findByUsername(READER).orElseGet(() -> userRepository.save(User.builder()
+                .username(READER).email(READER + "@example.com").password("x").role(Role.USER).build()));
+        // More history for the reader and more borrows overall, both overdue and returned
+        budgets = new StatementBudgets(mockMvc, counter, cacheManager, () -> {
+            borrows(60, true);
+            borrows(60, false);
+        });
+        admin = "Bearer " + jwtUtil.generateToken("borrow-budget-admin", "ADMIN");
+        user = "Bearer " + jwtUtil.generateToken(READER, "USER");
+        borrows(3, false);
+    }
+
+    @Test
+    void reads() throws Exception {
+        budgets.assertWithin(1, () -> get("/api/borrows/all").header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/borrows/user/my-borrows").header("Authorization", user));
+        budgets.assertWithin(1, () -> get("/api/borrows/admin/export").header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/borrows/admin/export").param("format", "csv")
+                .header("Authorization", admin));
+    }
+
+    @Test
+    void borrowAndReturn() throws Exception {
+        budgets.assertWithin(5, () -> post("/api/borrows/user/borrow")
+                .param("bookId", String.valueOf(books(1, true).get(0).getId())).param("days", "7")
+                .header("Authorization", user));
+        budgets.assertWithin(4, () -> post("/api/borrows/user/return/" + borrows(1, false).get(0).getId())
+                .header("Authorization", user));
+        budgets.assertWithin(4, () -> delete("/api/borrows/admin/" + borrows(1, false).get(0).getId())
+                .header("Authorization", admin));
+    }
+
+    // A cart costs the same number of statements whatever its size; borrowing reads the new copy counts back
+    @Test
+    void batches() throws Exception {
+        budgets.assertWithin(6, () -> post("/api/borrows/user/borrow/batch").header("Authorization", user)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(
+                        new BatchBorrowRequest(books(10, true).stream().map(Book::getId).toList(), 7))));
+        budgets.assertWithin(4, () -> post("/api/borrows/user/return/batch").header("Authorization", user)
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(
+                        new BatchReturnRequest(borrows(10, false).stream().map(Borrow::getId).toList()))));
+    }
+
+    // Below the chunk size a run is a fixed number of statements however many borrows are overdue
+    @Test
+    void penaltyAccrual() throws Exception {
+        budgets.assertWithin(6, () -> {
+            // Forget today's completed run so the second call accrues again
+            checkpointRepository.deleteAll();
+            return post("/api/borrows/admin/penalties/accrue").header("Authorization", admin);
+        });
+    }
+
+    private List<Book> books(int count, boolean available) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(Book.builder().title("Borrow budget " + i).author("Author").category("Fiction")
+                    .rentPerDay(1.0).available(available).availableCopies(available ? 1 : 0).build());
+        }
+        return bookRepository.saveAll(books);
+    }
+
+    // Open borrows are overdue, so penalty accrual has work to do
+    private List<Borrow> borrows(int count, boolean returned) {
+        LocalDate today = LocalDate.now();
+        List<Borrow> borrows = new ArrayList<>(count);
+        for (Book book : books(count, returned)) {
+            Borrow borrow = new Borrow();
+            borrow.setUser(reader);
+            borrow.setBook(book);
+            borrow.setBorrowDate(today.minusDays(20));
+            borrow.setDueDate(today.minusDays(6));
+            if (returned) {
+                borrow.setReturnDate(today.minusDays(1));
+            }
+            borrows.add(borrow);
+        }
+        return borrowRepository.saveAll(borrows);
+    }
+}
@@ -0,0 +1,133 @@
+package com.lib_management.LIB.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.service.BookService;
+import com.lib_management.LIB.service.BorrowService;
+import com.lib_management.LIB.service.CatalogEventBroadcaster;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "library.catalog.events.max-subscribers=1")
+@ActiveProfiles("h2")
+class CatalogEventsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CatalogEventBroadcaster broadcaster;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private CompletableFuture<HttpResponse<Stream<String>>> stream;
+    // Set by the reader before it blocks in forEach, so the body can be closed from the test thread
+    private volatile HttpResponse<Stream<String>> response;
+
+    @AfterEach
+    void closeStream() {
+        if (response != null) {
+            response.body().close();
+        } else if (stream != null) {
+            stream.cancel(true);
+        }
+    }
+
+    @Test
+    void mutationsArePushedAsDeltas() throws Exception {
+        BlockingQueue<Map<String, String>> events = subscribe();
+        User reader = userRepository.save(User.builder()
+                .username("streamed").email("streamed@example.com").password("x").role(Role.USER).build());
+
+        Book book = bookService.addBook(Book.builder()
+                .title("Pushed").author("Author").category("Fiction").rentPerDay(1.0).available(true).build());
+        Map<String, String> added = next(events);
+        assertEquals("book", added.get("event"));
+        assertTrue(added.get("data").contains("\"title\":\"Pushed\""), added.toString());
+
+        borrowService.borrowBook(reader.getUsername(), book.getId(), 7);
+        Map<String, String> borrowed = next(events);
+        assertEquals("availability", borrowed.get("event"));
+        assertTrue(borrowed.get("data").contains("\"id\":" + book.getId()), borrowed.toString());
+        assertTrue(borrowed.get("data").contains("\"available\":false"), borrowed.toString());
+        // Ids are "epoch-version": same epoch, later version
+        String[] addedId = added.get("id").split("-");
+        String[] borrowedId = borrowed.get("id").split("-");
+        assertEquals(addedId[0], borrowedId[0]);
+        assertTrue(Long.parseLong(borrowedId[1]) > Long.parseLong(addedId[1]));
+
+        // Only one subscriber is allowed in this context
+        HttpResponse<Void> refused = client.send(eventsRequest(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(503, refused.statusCode());
+    }
+
+    private BlockingQueue<Map<String, String>> subscribe() throws InterruptedException {
+        BlockingQueue<Map<String, String>> events = new LinkedBlockingQueue<>();
+        stream = client.sendAsync(eventsRequest(), HttpResponse.BodyHandlers.ofLines());
+        stream.thenAccept(response -> {
+            this.response = response;
+            Map<String, String> event = new LinkedHashMap<>();
+            response.body().forEach(line -> {
+                if (line.isEmpty()) {
+                    if (event.containsKey("event")) {
+                        events.add(new LinkedHashMap<>(event));
+                    }
+                    event.clear();
+                } else if (!line.startsWith(":")) {
+                    int colon = line.indexOf(':');
+                    event.put(line.substring(0, colon), line.substring(colon + 1));
+                }
+            });
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (broadcaster.subscriberCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, broadcaster.subscriberCount());
+        return events;
+    }
+
+    private HttpRequest eventsRequest() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/events"))
+                .header("Accept", "text/event-stream").timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static Map<String, String> next(BlockingQueue<Map<String, String>> events) throws InterruptedException {
+        Map<String, String> event = events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event, "no event received");
+        return event;
+    }
+}
@@ -0,0 +1,147 @@
+package com.lib_management.LIB.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.config.JwtUtil;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.support.SqlStatementCounter;
+import com.lib_management.LIB.support.StatementBudgets;
+
+// The counter is global, so keep the outbox dispatcher's polls out of it
+@SpringBootTest(properties = "library.audit.dispatch-interval=1h")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import(SqlStatementCounter.class)
+class UserControllerStatementBudgetTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private StatementBudgets budgets;
+    private String admin;
+    // Users created for deletion carry this many borrows; growing the data raises it
+    private int borrowsPerUser = 2;
+
+    @BeforeEach
+    void setUp() {
+        budgets = new StatementBudgets(mockMvc, counter, cacheManager, () -> {
+            for (int i = 0; i < 60; i++) {
+                newUser(0);
+            }
+            borrowsPerUser = 60;
+        });
+        admin = "Bearer " + jwtUtil.generateToken("user-budget-admin", "ADMIN");
+        newUser(0);
+    }
+
+    @Test
+    void reads() throws Exception {
+        budgets.assertWithin(1, () -> get("/api/users/all").header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/users/" + newUser(0).getId()).header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/users/admin/export").header("Authorization", admin));
+        budgets.assertWithin(1, () -> get("/api/users/admin/export").param("format", "csv")
+                .header("Authorization", admin));
+    }
+
+    @Test
+    void writes() throws Exception {
+        budgets.assertWithin(1, () -> {
+            String username = "registered-" + SEQUENCE.incrementAndGet();
+            return post("/api/users/register").contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("username", username,
+                            "email", username + "@example.com", "password", "pw", "role", "USER")));
+        });
+        budgets.assertWithin(2, () -> {
+            User user = newUser(0);
+            return put("/api/users/admin/" + user.getId()).header("Authorization", admin)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("username", user.getUsername() + "-renamed",
+                            "email", user.getEmail(), "role", "USER")));
+        });
+        // Removing a user's borrow history must not cost a statement per borrow: the user, the books
+        // still held, the audit count and INSERT ... SELECT, the borrows and the user row
+        budgets.assertWithin(6, () -> delete("/api/users/admin/" + newUser(borrowsPerUser).getId())
+                .header("Authorization", admin));
+        // Plus putting back the copies still on loan and reading their counters for the change events
+        budgets.assertWithin(8, () -> {
+            User user = newUser(borrowsPerUser);
+            Borrow open = new Borrow();
+            open.setUser(user);
+            open.setBook(bookRepository.save(Book.builder().title("User budget open").author("Author")
+                    .category("Fiction").rentPerDay(1.0).available(false).availableCopies(0).build()));
+            open.setBorrowDate(LocalDate.now());
+            open.setDueDate(LocalDate.now().plusDays(7));
+            borrowRepository.save(open);
+            return delete("/api/users/admin/" + user.getId()).header("Authorization", admin);
+        });
+    }
+
+    private User newUser(int borrowCount) {
+        String username = "budget-user-" + SEQUENCE.incrementAndGet();
+        User user = userRepository.save(User.builder().username(username).email(username + "@example.com")
+                .password("x").role(Role.USER).build());
+        List<Borrow> borrows = new ArrayList<>(borrowCount);
+        for (int i = 0; i < borrowCount; i++) {
+            Borrow borrow = new Borrow();
+            borrow.setUser(user);
+            borrow.setBook(bookRepository.save(Book.builder().title("User budget " + i).author("Author")
+                    .category("Fiction").rentPerDay(1.0).available(true).build()));
+            borrow.setBorrowDate(LocalDate.now().minusDays(10));
+            borrow.setDueDate(LocalDate.now().plusDays(4));
+            borrow.setReturnDate(LocalDate.now());
+            borrows.add(borrow);
+        }
+        borrowRepository.saveAll(borrows);
+        return user;
+    }
+}
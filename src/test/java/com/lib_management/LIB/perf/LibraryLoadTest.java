@@ -0,0 +1,351 @@
+package com.lib_management.LIB.perf;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.UserRepository;
+import com.lib_management.LIB.service.BookSearchIndex;
+
+/**
+ * Load test through the REST layer against embedded H2 in MySQL mode.
+ *
+ * Seeds books, users and borrow history, then runs one virtual user per thread doing a mix of
+ * search, borrow, return and my-borrows calls, logging in again every {@code perf.relogin-every}
+ * iterations. Requests made during the warm-up are not counted. Prints count, throughput and
+ * p50/p99/max per endpoint and fails when an endpoint's p99 is over its budget or when any request
+ * gets a status other than the expected ones (503 on login and 400 for a taken book are expected).
+ *
+ * Excluded from the normal build; run it with {@code mvn -Pperf test}, overriding any of the
+ * {@code perf.*} settings as system properties, e.g. {@code -Dperf.books=100000 -Dperf.budget.search.p99=100ms}.
+ */
+@Tag("perf")
+// The virtual users all come from one address; the limits would throttle the load being measured
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "library.rate-limit.enabled=false")
+@ActiveProfiles("h2")
+class LibraryLoadTest {
+
+    private static final String PASSWORD = "perf-password";
+    private static final String[] WORDS = {"dune", "foundation", "hyperion", "solaris", "neuromancer",
+            "ubik", "contact", "ringworld", "gateway", "accelerando"};
+    private static final int SEED_CHUNK = 1000;
+
+    enum Endpoint {
+        LOGIN("login", Set.of(200, 503), Duration.ofMillis(1500)),
+        SEARCH("search", Set.of(200), Duration.ofMillis(250)),
+        BORROW("borrow", Set.of(200, 400), Duration.ofMillis(250)),
+        RETURN("return", Set.of(200), Duration.ofMillis(250)),
+        MY_BORROWS("my-borrows", Set.of(200), Duration.ofMillis(250));
+
+        final String key;
+        final Set<Integer> expectedStatuses;
+        final Duration defaultP99Budget;
+
+        Endpoint(String key, Set<Integer> expectedStatuses, Duration defaultP99Budget) {
+            this.key = key;
+            this.expectedStatuses = expectedStatuses;
+            this.defaultP99Budget = defaultP99Budget;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${perf.books:10000}")
+    private int bookCount;
+
+    @Value("${perf.users:32}")
+    private int userCount;
+
+    @Value("${perf.borrows:5000}")
+    private int borrowCount;
+
+    @Value("${perf.threads:16}")
+    private int threads;
+
+    @Value("${perf.warmup:5s}")
+    private Duration warmup;
+
+    @Value("${perf.duration:30s}")
+    private Duration duration;
+
+    @Value("${perf.relogin-every:50}")
+    private int reloginEvery;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private long[] bookIds;
+
+    @Test
+    void endpointsStayWithinLatencyBudgets() throws Exception {
+        long seedStart = System.nanoTime();
+        seed();
+        System.out.printf("Seeded %d books, %d users, %d borrows in %d ms%n", bookCount, userCount, borrowCount,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + warmup.toNanos();
+        long until = measureFrom + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Samples>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String username = "perf-user-" + t % userCount;
+            workers.add(pool.submit(() -> runVirtualUser(username, measureFrom, until)));
+        }
+        Samples all = new Samples();
+        for (Future<Samples> worker : workers) {
+            all.addAll(worker.get(warmup.plus(duration).plusMinutes(2).toMillis(), TimeUnit.MILLISECONDS));
+        }
+        pool.shutdown();
+
+        double seconds = duration.toNanos() / 1e9;
+        List<String> failures = new ArrayList<>();
+        System.out.printf("%-11s %8s %8s %10s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p99 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            long[] latencies = all.latencies(endpoint);
+            Arrays.sort(latencies);
+            long p50 = percentile(latencies, 0.50);
+            long p99 = percentile(latencies, 0.99);
+            long max = latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+            int errors = all.errors(endpoint);
+            System.out.printf("%-11s %8d %8d %10.1f %9.1f %9.1f %9.1f%n", endpoint.key, latencies.length, errors,
+                    latencies.length / seconds, p50 / 1e6, p99 / 1e6, max / 1e6);
+
+            Duration budget = environment.getProperty("perf.budget." + endpoint.key + ".p99", Duration.class,
+                    endpoint.defaultP99Budget);
+            if (p99 > budget.toNanos()) {
+                failures.add(String.format("%s p99 %.1f ms exceeds budget %d ms", endpoint.key, p99 / 1e6,
+                        budget.toMillis()));
+            }
+            if (errors > 0) {
+                failures.add(endpoint.key + " had " + errors + " unexpected responses, e.g. " + all.firstError(endpoint));
+            }
+        }
+        assertTrue(all.latencies(Endpoint.SEARCH).length > 0, "no requests completed in the measured window");
+        assertTrue(failures.isEmpty(), String.join("; ", failures));
+    }
+
+    private Samples runVirtualUser(String username, long measureFrom, long until) throws Exception {
+        Samples samples = new Samples();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Deque<Long> openBorrows = new ArrayDeque<>();
+        String token = login(username, samples, measureFrom);
+        for (int i = 1; System.nanoTime() < until; i++) {
+            if (i % reloginEvery == 0) {
+                token = login(username, samples, measureFrom);
+            }
+            call(Endpoint.SEARCH, get("/api/books/search?q=" + WORDS[random.nextInt(WORDS.length)], token),
+                    samples, measureFrom);
+
+            long bookId = bookIds[random.nextInt(bookIds.length)];
+            HttpResponse<String> borrowed = call(Endpoint.BORROW,
+                    post("/api/borrows/user/borrow?bookId=" + bookId + "&days=7", token), samples, measureFrom);
+            if (borrowed.statusCode() == 200) {
+                openBorrows.addLast(objectMapper.readTree(borrowed.body()).get("id").asLong());
+            }
+            // Keep a few books out per user so borrows keep finding free copies
+            if (openBorrows.size() > 3) {
+                call(Endpoint.RETURN, post("/api/borrows/user/return/" + openBorrows.removeFirst(), token),
+                        samples, measureFrom);
+            }
+
+            call(Endpoint.MY_BORROWS, get("/api/borrows/user/my-borrows", token), samples, measureFrom);
+        }
+        return samples;
+    }
+
+    // Logs in, waiting out 503s from the BCrypt limiter; only measured attempts are recorded
+    private String login(String username, Samples samples, long measureFrom) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD));
+        while (true) {
+            HttpResponse<String> response = call(Endpoint.LOGIN, HttpRequest.newBuilder(uri("/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), samples, measureFrom);
+            if (response.statusCode() == 200) {
+                JsonNode tokens = objectMapper.readTree(response.body());
+                return tokens.get("token").asText();
+            }
+            if (response.statusCode() != 503) {
+                throw new IllegalStateException("Login failed for " + username + ": " + response.statusCode());
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private HttpResponse<String> call(Endpoint endpoint, HttpRequest request, Samples samples, long measureFrom)
+            throws Exception {
+        long started = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - started;
+        if (started >= measureFrom) {
+            samples.record(endpoint, elapsed, response);
+        }
+        return response;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    // Every fifth borrow is still open and holds its book; the rest are history
+    private void seed() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCount; i++) {
+            users.add(User.builder().username("perf-user-" + i).email("perf-user-" + i + "@example.com")
+                    .password(encodedPassword).role(Role.USER).build());
+        }
+        List<User> savedUsers = tx.execute(status -> userRepository.saveAll(users));
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int from = 0; from < bookCount; from += SEED_CHUNK) {
+            List<Book> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(bookCount, from + SEED_CHUNK); i++) {
+                chunk.add(Book.builder()
+                        .title(WORDS[i % WORDS.length] + " " + WORDS[i / WORDS.length % WORDS.length] + " volume " + i)
+                        .author("Author " + i % 500).category("Category " + i % 20)
+                        .rentPerDay(1.0 + i % 5).available(!isOpenBorrow(i)).build());
+            }
+            books.addAll(tx.execute(status -> bookRepository.saveAll(chunk)));
+        }
+
+        LocalDate today = LocalDate.now();
+        for (int from = 0; from < borrowCount; from += SEED_CHUNK) {
+            List<Borrow> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(borrowCount, from + SEED_CHUNK); i++) {
+                Borrow borrow = new Borrow();
+                borrow.setUser(savedUsers.get(i % userCount));
+                borrow.setBook(books.get(i % bookCount));
+                borrow.setBorrowDate(today.minusDays(30 + i % 60));
+                borrow.setDueDate(borrow.getBorrowDate().plusDays(14));
+                if (!isOpenBorrow(i)) {
+                    borrow.setReturnDate(borrow.getDueDate());
+                }
+                chunk.add(borrow);
+            }
+            tx.executeWithoutResult(status -> borrowRepository.saveAll(chunk));
+        }
+        bookIds = books.stream().mapToLong(Book::getId).toArray();
+        // Seeding bypasses the services, so the search index has not seen these books yet
+        searchIndex.load();
+    }
+
+    private boolean isOpenBorrow(int index) {
+        return index < borrowCount && index < bookCount && index % 5 == 0;
+    }
+
+    private static final class Samples {
+
+        private final Map<Endpoint, List<Long>> latencies = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Integer> errors = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, String> firstErrors = new EnumMap<>(Endpoint.class);
+
+        void record(Endpoint endpoint, long nanos, HttpResponse<String> response) {
+            latencies.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(nanos);
+            if (!endpoint.expectedStatuses.contains(response.statusCode())) {
+                errors.merge(endpoint, 1, Integer::sum);
+                firstErrors.putIfAbsent(endpoint, response.statusCode() + " " + response.body());
+            }
+        }
+
+        void addAll(Samples other) {
+            other.latencies.forEach((endpoint, values) ->
+                    latencies.computeIfAbsent(endpoint, e -> new ArrayList<>()).addAll(values));
+            other.errors.forEach((endpoint, count) -> errors.merge(endpoint, count, Integer::sum));
+            other.firstErrors.forEach(firstErrors::putIfAbsent);
+        }
+
+        long[] latencies(Endpoint endpoint) {
+            return latencies.getOrDefault(endpoint, List.of()).stream().mapToLong(Long::longValue).toArray();
+        }
+
+        int errors(Endpoint endpoint) {
+            return errors.getOrDefault(endpoint, 0);
+        }
+
+        String firstError(Endpoint endpoint) {
+            return firstErrors.get(endpoint);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.lib_management.LIB.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.support.SqlStatementCounter;
+import com.lib_management.LIB.support.SqlStatementCounter.ExecutedStatement;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs every query method of the repositories, EXPLAINs the SQL it executed with the same
+ * parameters, and fails if any plan reads a whole table. The plans come from H2 on the schema the
+ * migrations create, so this checks that each query shape has an index to use.
+ *
+ * The stream* export queries are left out: they read the whole table on purpose.
+ */
+// The counter is global, so keep the outbox dispatcher's polls out of it
+@SpringBootTest(properties = "library.audit.dispatch-interval=1h")
+@ActiveProfiles("h2")
+@Import(SqlStatementCounter.class)
+class RepositoryQueryPlanTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        Seed seed = seed();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("BookRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> bookRepository.findByIdGreaterThanOrderByIdAsc(seed.bookIds.get(100), Limit.of(50)));
+        queries.put("BookRepository.findByAvailableTrueAndIdGreaterThanOrderByIdAsc",
+                () -> bookRepository.findByAvailableTrueAndIdGreaterThanOrderByIdAsc(seed.bookIds.get(100), Limit.of(50)));
+        queries.put("BookRepository.claimIfAvailable", () -> bookRepository.claimIfAvailable(seed.bookIds.get(1)));
+        queries.put("BookRepository.claimAllIfAvailable",
+                () -> bookRepository.claimAllIfAvailable(seed.bookIds.subList(0, 10)));
+        queries.put("BookRepository.releaseIfOutstanding", () -> bookRepository.releaseIfOutstanding(seed.borrowIds.get(0)));
+        queries.put("BookRepository.releaseAllOutstanding",
+                () -> bookRepository.releaseAllOutstanding(seed.borrowIds.subList(0, 10)));
+        queries.put("BookRepository.resizeCopies", () -> bookRepository.resizeCopies(seed.bookIds.get(2), 3));
+        queries.put("BookRepository.findCopies", () -> bookRepository.findCopies(seed.bookIds.subList(0, 10)));
+        queries.put("BookRepository.findForUpdateById", () -> bookRepository.findForUpdateById(seed.bookIds.get(4)));
+        queries.put("BorrowRepository.findByBookId", () -> borrowRepository.findByBookId(seed.bookIds.get(7)));
+        queries.put("BorrowRepository.deleteByUserId", () -> borrowRepository.deleteByUserId(seed.users.get(3).getId()));
+        queries.put("BorrowRepository.findOutstandingBookIdsByUserId",
+                () -> borrowRepository.findOutstandingBookIdsByUserId(seed.users.get(3).getId()));
+        queries.put("BorrowRepository.countByUserId", () -> borrowRepository.countByUserId(seed.users.get(3).getId()));
+        queries.put("BookRepository.releaseAllOutstandingOfUser",
+                () -> bookRepository.releaseAllOutstandingOfUser(seed.users.get(3).getId()));
+        queries.put("OutboxEventRepository.insertForUserBorrows", () -> outboxEventRepository.insertForUserBorrows(
+                "DELETED", seed.users.get(3).getId(), 1_000_000_000L, 1000, LocalDateTime.now()));
+        queries.put("BorrowRepository.findViewsAfter",
+                () -> borrowRepository.findViewsAfter(seed.borrowIds.get(100), Limit.of(50)));
+        queries.put("BorrowRepository.findViewsByUsername",
+                () -> borrowRepository.findViewsByUsername(seed.users.get(3).getUsername()));
+        queries.put("BorrowRepository.findWithBookAndUserById",
+                () -> borrowRepository.findWithBookAndUserById(seed.borrowIds.get(5)));
+        queries.put("BorrowRepository.findAllWithBookAndUserByIdIn",
+                () -> borrowRepository.findAllWithBookAndUserByIdIn(seed.borrowIds.subList(0, 10)));
+        queries.put("BorrowRepository.findOverdueAfter",
+                () -> borrowRepository.findOverdueAfter(LocalDate.now(), 0L, Limit.of(100)));
+        queries.put("UserRepository.findByUsername", () -> userRepository.findByUsername(seed.users.get(3).getUsername()));
+        queries.put("UserRepository.findAccountByUsername",
+                () -> userRepository.findAccountByUsername(seed.users.get(3).getUsername()));
+        queries.put("UserRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(50)));
+        queries.put("OutboxEventRepository.findOldest", () -> outboxEventRepository.findOldest(Limit.of(50)));
+
+        List<String> scans = new ArrayList<>();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        queries.forEach((name, query) -> {
+            cacheManager.getCacheNames().forEach(cache -> cacheManager.getCache(cache).clear());
+            counter.reset();
+            // Writes are flushed so their SQL runs, then rolled back so every query sees the same data
+            tx.executeWithoutResult(status -> {
+                query.run();
+                entityManager.flush();
+                status.setRollbackOnly();
+            });
+            List<ExecutedStatement> executed = counter.statements();
+            assertFalse(executed.isEmpty(), name + " executed no SQL");
+            for (ExecutedStatement statement : executed) {
+                String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statement.sql(), String.class,
+                        statement.parameters().toArray()));
+                if (plan.contains("tableScan")) {
+                    scans.add(name + " scans a whole table:\n" + plan);
+                }
+            }
+        });
+        assertTrue(scans.isEmpty(), String.join("\n\n", scans));
+    }
+
+    private record Seed(List<Long> bookIds, List<User> users, List<Long> borrowIds) {
+    }
+
+    // Enough rows that an index lookup is clearly cheaper than a scan for the planner
+    private Seed seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(User.builder().username("plan-user-" + i).email("plan-user-" + i + "@example.com")
+                    .password("x").role(Role.USER).build());
+        }
+        users = userRepository.saveAll(users);
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            books.add(Book.builder().title("Plan book " + i).author("Author " + i % 40).category("Category " + i % 12)
+                    .rentPerDay(1.0).available(i % 4 != 0).availableCopies(i % 4 != 0 ? 1 : 0).build());
+        }
+        books = bookRepository.saveAll(books);
+
+        LocalDate today = LocalDate.now();
+        List<Borrow> borrows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Borrow borrow = new Borrow();
+            borrow.setUser(users.get(i % users.size()));
+            borrow.setBook(books.get(i % books.size()));
+            borrow.setBorrowDate(today.minusDays(30));
+            borrow.setDueDate(today.minusDays(30 - i % 40));
+            // Most history is returned; one in ten borrows is still out
+            if (i % 10 != 0) {
+                borrow.setReturnDate(today.minusDays(1));
+            }
+            borrows.add(borrow);
+        }
+        borrows = borrowRepository.saveAll(borrows);
+        jdbcTemplate.execute("ANALYZE");
+
+        return new Seed(books.stream().map(Book::getId).toList(), users,
+                borrows.stream().map(Borrow::getId).toList());
+    }
+}
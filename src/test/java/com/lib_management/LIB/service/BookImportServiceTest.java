@@ -0,0 +1,178 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.lib_management.LIB.dto.CategoryFacet;
+import com.lib_management.LIB.dto.ImportStatus;
+import com.lib_management.LIB.event.BooksImportedEvent;
+
+@SpringBootTest(properties = {
+        // Small chunks so a few rows span several transactions
+        "library.import.chunk-size=3",
+        "library.import.flush-interval=2",
+        "library.import.max-reported-errors=3"
+})
+@ActiveProfiles("h2")
+class BookImportServiceTest {
+
+    private static final String HEADER = "title,author,category,rentPerDay,available,totalCopies\n";
+
+    @Autowired
+    private BookImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private CategoryFacets categoryFacets;
+
+    @Test
+    void invalidRowsAreRejectedWithTheirRowNumbers() throws Exception {
+        ImportStatus status = importAndWait(HEADER
+                + "Valid One,Author,Fiction,1.5,true,2\n"
+                + "Bad Rent,Author,Fiction,cheap,,\n"
+                + ",Author,Fiction,1.0,,\n"
+                + "No Copies,Author,Fiction,1.0,,0\n"
+                + "Valid Two,Author,Fiction,0,false,\n");
+
+        assertEquals(ImportStatus.State.COMPLETED, status.state());
+        assertEquals(5, status.rowsRead());
+        assertEquals(2, status.imported());
+        assertEquals(3, status.rejected());
+        assertEquals(List.of(
+                new ImportStatus.RowError(2, "rentPerDay is not a number: cheap"),
+                new ImportStatus.RowError(3, "title is required"),
+                new ImportStatus.RowError(4, "totalCopies must be at least 1")), status.errors());
+        assertEquals(List.of("Valid One", "Valid Two"), titlesLike("Valid %"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT available_copies FROM books WHERE title = 'Valid Two'", Integer.class));
+    }
+
+    @Test
+    void onlyTheFirstErrorsAreReportedButAllAreCounted() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 7; i++) {
+            csv.append("Capped ").append(i).append(",Author,Fiction,-1,,\n");
+        }
+        csv.append("Capped valid,Author,Fiction,1,,\n");
+
+        ImportStatus status = importAndWait(csv.toString());
+
+        assertEquals(ImportStatus.State.COMPLETED, status.state());
+        assertEquals(1, status.imported());
+        assertEquals(7, status.rejected());
+        assertEquals(List.of(1L, 2L, 3L), status.errors().stream().map(ImportStatus.RowError::row).toList());
+    }
+
+    @Test
+    void failureWhileSavingRollsBackOnlyThatChunk() throws Exception {
+        ImportStatus status = importAndWait(HEADER
+                + "Chunked 1,Author,Fiction,1,,\n"
+                + "Chunked 2,Author,Fiction,1,,\n"
+                + "Chunked 3,Author,Fiction,1,,\n"
+                + "Chunked 4,Author,Fiction,1,,\n"
+                + FailingInsert.TITLE + ",Author,Fiction,1,,\n"
+                + "Chunked 6,Author,Fiction,1,,\n"
+                + "Chunked 7,Author,Fiction,1,,\n");
+
+        assertEquals(ImportStatus.State.COMPLETED, status.state());
+        assertEquals(4, status.imported());
+        assertEquals(3, status.rejected());
+        assertEquals(1, status.errors().size());
+        assertEquals(4, status.errors().get(0).row());
+        assertTrue(status.errors().get(0).message().startsWith("Rows 4-6 could not be saved"),
+                status.errors().get(0).message());
+        assertEquals(List.of("Chunked 1", "Chunked 2", "Chunked 3", "Chunked 7"), titlesLike("Chunked %"));
+    }
+
+    @Test
+    void eachChunkIsOneCatalogChange() throws Exception {
+        String before = changeLog.latestToken();
+        long version = catalogVersion.current();
+        long fantasy = facetTotal("Bulk Fantasy");
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 7; i++) {
+            csv.append("Bulk ").append(i).append(",Author,Bulk Fantasy,1,,\n");
+        }
+
+        ImportStatus status = importAndWait(csv.toString());
+
+        assertEquals(7, status.imported());
+        assertEquals(version + 3, catalogVersion.current());
+        assertEquals(version + 3, changeLog.latest());
+        // Too many books for a delta: clients from before the import take a snapshot
+        assertTrue(changeLog.changesSince(before).isEmpty());
+        assertTrue(changeLog.changesSince(changeLog.latestToken()).orElseThrow().changes().isEmpty());
+        assertEquals(7, searchIndex.search(BookSearchIndex.Field.CATEGORY, "Bulk Fantasy").size());
+        assertEquals(fantasy + 7, facetTotal("Bulk Fantasy"));
+    }
+
+    @Test
+    void missingColumnsFailTheJob() throws Exception {
+        ImportStatus status = importAndWait("title,author\nHeaderless,Author\n");
+
+        assertEquals(ImportStatus.State.FAILED, status.state());
+        assertEquals("Missing columns: [category, rentperday]", status.failure());
+        assertEquals(0, status.imported());
+    }
+
+    private ImportStatus importAndWait(String csv) throws InterruptedException {
+        ImportStatus submitted = importService.submit(new MockMultipartFile(
+                "file", "books.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            ImportStatus status = importService.getStatus(submitted.jobId()).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Import " + submitted.jobId() + " did not finish");
+    }
+
+    private long facetTotal(String category) {
+        return categoryFacets.facets().stream().filter(facet -> facet.category().equals(category))
+                .mapToLong(CategoryFacet::total).sum();
+    }
+
+    private List<String> titlesLike(String pattern) {
+        return jdbcTemplate.queryForList("SELECT title FROM books WHERE title LIKE ? ORDER BY title", String.class, pattern);
+    }
+
+    // Fails the chunk holding one row after all its rows were persisted
+    @TestConfiguration
+    static class FailingInsert {
+
+        static final String TITLE = "Chunked 5";
+
+        @EventListener
+        void onBooksImported(BooksImportedEvent event) {
+            if (event.books().stream().anyMatch(book -> TITLE.equals(book.getTitle()))) {
+                throw new IllegalStateException("Simulated write failure");
+            }
+        }
+    }
+}
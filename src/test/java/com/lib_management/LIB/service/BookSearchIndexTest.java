@@ -0,0 +1,88 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+
+class BookSearchIndexTest {
+
+    // Never loaded from the repository here; every book comes from index() or events
+    private final BookSearchIndex index = new BookSearchIndex(null, 1000);
+
+    @Test
+    void addedBooksAreFoundOnEveryField() {
+        index.index(book(1, "Dune", "Frank Herbert", "Science Fiction"));
+        index.index(book(2, "Dune Messiah", "Frank Herbert", "Science Fiction"));
+        index.index(book(3, "Emma", "Jane Austen", "Classics"));
+
+        assertEquals(List.of(1L, 2L), ids(index.search(BookSearchIndex.Field.TITLE, "DUNE")));
+        assertEquals(List.of(3L), ids(index.search(BookSearchIndex.Field.AUTHOR, "austen")));
+        assertEquals(List.of(1L, 2L), ids(index.search(BookSearchIndex.Field.CATEGORY, "fiction")));
+        assertEquals(List.of(2L), ids(index.search(BookSearchIndex.Field.TITLE, "messiah")));
+        assertEquals(List.of(), index.search(BookSearchIndex.Field.TITLE, "herbert"));
+        // Any field, narrowed by a field criterion
+        assertEquals(List.of(1L, 2L), ids(index.search("herbert", Map.of())));
+        assertEquals(List.of(3L), ids(index.search("a", Map.of(BookSearchIndex.Field.CATEGORY, "classic"))));
+    }
+
+    @Test
+    void editsAreReindexed() {
+        Book dune = book(1, "Dune", "Frank Herbert", "Science Fiction");
+        index.index(dune);
+        index.apply(BookChangedEvent.updated(dune, book(1, "Children of Dune", "Frank Herbert", "Space Opera")));
+
+        assertEquals(List.of(), index.search(BookSearchIndex.Field.CATEGORY, "science"));
+        assertEquals(List.of(1L), ids(index.search(BookSearchIndex.Field.CATEGORY, "opera")));
+        assertEquals(List.of(1L), ids(index.search(BookSearchIndex.Field.TITLE, "children")));
+        assertEquals("Space Opera", index.search(BookSearchIndex.Field.TITLE, "dune").get(0).getCategory());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removedBooksAreNotFoundAndTheirSlotsAreReused() {
+        index.index(book(1, "Dune", "Frank Herbert", "Science Fiction"));
+        Book emma = book(2, "Emma", "Jane Austen", "Classics");
+        index.index(emma);
+        index.apply(BookChangedEvent.deleted(emma));
+
+        assertEquals(List.of(), index.search(BookSearchIndex.Field.TITLE, "emma"));
+        assertEquals(List.of(), index.search(BookSearchIndex.Field.AUTHOR, "ja"));
+        assertEquals(1, index.size());
+
+        for (long id = 3; id < 1003; id++) {
+            Book book = book(id, "Book " + id, "Author", "Category");
+            index.index(book);
+            index.remove(id);
+        }
+        assertEquals(2, index.capacity());
+        assertEquals(List.of(1L), ids(index.search("dune", Map.of())));
+    }
+
+    @Test
+    void queriesShorterThanATrigramMatchAnywhere() {
+        index.index(book(1, "It", "Stephen King", "Horror"));
+        index.index(book(2, "Ulysses", "James Joyce", "Classics"));
+
+        assertEquals(List.of(1L), ids(index.search(BookSearchIndex.Field.TITLE, "it")));
+        assertEquals(List.of(1L), ids(index.search(BookSearchIndex.Field.TITLE, "t")));
+        // Middle of a word, not only at its edges
+        assertEquals(List.of(2L), ids(index.search(BookSearchIndex.Field.TITLE, "ss")));
+        assertEquals(List.of(1L, 2L), ids(index.search(BookSearchIndex.Field.AUTHOR, "e")));
+        assertEquals(List.of(), index.search(BookSearchIndex.Field.TITLE, "q"));
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+
+    private static Book book(long id, String title, String author, String category) {
+        return Book.builder().id(id).title(title).author(author).category(category)
+                .rentPerDay(1.0).available(true).build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.Borrow;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class BorrowServiceConcurrencyTest {
+
+    private static final int BOOKS = 50;
+    private static final int ATTEMPTS = 5000;
+    private static final int THREADS = 32;
+    private static final int TITLES = 5;
+    private static final int COPIES = 20;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Test
+    void concurrentBorrowsHaveExactlyOneWinnerPerCopy() throws Exception {
+        userRepository.save(User.builder()
+                .username("reader").email("reader@example.com").password("x").role(Role.USER).build());
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookRepository.save(Book.builder()
+                    .title("Bestseller " + i).author("Author").category("Fiction")
+                    .rentPerDay(1.0).available(true).build()).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger wins = new AtomicInteger();
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            Long bookId = bookIds.get(i % BOOKS);
+            attempts.add(pool.submit(() -> {
+                start.await();
+                try {
+                    borrowService.borrowBook("reader", bookId, 7);
+                    wins.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failures.computeIfAbsent(String.valueOf(e.getMessage()), m -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> attempt : attempts) {
+            attempt.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(BOOKS, wins.get());
+        // Every loser must be a clean "not available", not a lock timeout or deadlock
+        assertEquals(Map.of("Book is not available for borrowing", ATTEMPTS - BOOKS),
+                failures.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get())));
+
+        List<Borrow> borrows = borrowsOf(bookIds);
+        assertEquals(BOOKS, borrows.size());
+        assertEquals(BOOKS, borrows.stream().map(b -> b.getBook().getId()).distinct().count());
+        assertTrue(bookRepository.findAllById(bookIds).stream().noneMatch(Book::isAvailable));
+    }
+
+    // A few bestsellers with many copies each: every copy goes exactly once, and returning each
+    // borrow twice at the same time puts every copy back exactly once. Throughput under this kind of
+    // contention is measured by BorrowContentionBenchmark (-Pjmh)
+    @Test
+    void bestsellerCopiesAreNeverOverOrUnderCounted() throws Exception {
+        userRepository.save(User.builder()
+                .username("bestseller-reader").email("bestseller-reader@example.com").password("x").role(Role.USER).build());
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < TITLES; i++) {
+            bookIds.add(bookRepository.save(Book.builder()
+                    .title("Bestseller with copies " + i).author("Author").category("Fiction")
+                    .rentPerDay(1.0).available(true).totalCopies(COPIES).availableCopies(COPIES).build()).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger wins = new AtomicInteger();
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            Long bookId = bookIds.get(i % TITLES);
+            attempts.add(pool.submit(() -> {
+                start.await();
+                try {
+                    borrowService.borrowBook("bestseller-reader", bookId, 7);
+                    wins.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failures.computeIfAbsent(String.valueOf(e.getMessage()), m -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> attempt : attempts) {
+            attempt.get(60, TimeUnit.SECONDS);
+        }
+
+        assertEquals(TITLES * COPIES, wins.get());
+        assertEquals(Map.of("Book is not available for borrowing", ATTEMPTS - TITLES * COPIES),
+                failures.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get())));
+        assertTrue(bookRepository.findAllById(bookIds).stream()
+                .allMatch(book -> book.getAvailableCopies() == 0 && !book.isAvailable()));
+
+        List<Borrow> borrows = borrowsOf(bookIds);
+        assertEquals(TITLES * COPIES, borrows.size());
+        AtomicInteger returns = new AtomicInteger();
+        List<Future<?>> returnAttempts = new ArrayList<>();
+        for (Borrow borrow : borrows) {
+            for (int i = 0; i < 2; i++) {
+                returnAttempts.add(pool.submit(() -> {
+                    try {
+                        borrowService.returnBook(borrow.getId());
+                        returns.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Already returned, or lost the race to the other return
+                    }
+                }));
+            }
+        }
+        for (Future<?> attempt : returnAttempts) {
+            attempt.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(TITLES * COPIES, returns.get());
+        assertTrue(bookRepository.findAllById(bookIds).stream()
+                .allMatch(book -> book.getAvailableCopies() == COPIES && book.isAvailable()));
+    }
+
+    private List<Borrow> borrowsOf(List<Long> bookIds) {
+        return borrowRepository.findAll().stream().filter(b -> bookIds.contains(b.getBook().getId())).toList();
+    }
+}
@@ -0,0 +1,88 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.BorrowRepository;
+import com.lib_management.LIB.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class BorrowServiceTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // The claim and the borrow insert commit together, so a failed insert leaves the copy on the shelf
+    @Test
+    void aBorrowThatCannotBeWrittenDoesNotKeepItsClaim() {
+        User user = userRepository.save(User.builder()
+                .username("unlucky").email("unlucky@example.com").password("x").role(Role.USER).build());
+        Book book = bookRepository.save(Book.builder().title("Unlucky").author("Author").category("Unlucky shelf")
+                .rentPerDay(1.0).available(true).totalCopies(2).availableCopies(2).build());
+        // The cached account outlives the user, so the claim succeeds and the borrow insert fails on its foreign key
+        userRepository.findAccountByUsername("unlucky");
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+
+        assertThrows(DataIntegrityViolationException.class, () -> borrowService.borrowBook("unlucky", book.getId(), 7));
+
+        Book after = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(2, after.getAvailableCopies());
+        assertTrue(after.isAvailable());
+        assertTrue(borrowRepository.findByBookId(book.getId()).isEmpty());
+    }
+
+    // Whatever stops the transaction after the claim, a crash or a lost connection included, takes
+    // the claim with it: there is no separate release that could fail or never run
+    @Test
+    void aClaimIsNeverCommittedWithoutItsBorrow() {
+        userRepository.save(User.builder()
+                .username("interrupted").email("interrupted@example.com").password("x").role(Role.USER).build());
+        Book book = bookRepository.save(Book.builder().title("Interrupted").author("Author").category("Interrupted shelf")
+                .rentPerDay(1.0).available(true).totalCopies(1).availableCopies(1).build());
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            borrowService.borrowBook("interrupted", book.getId(), 7);
+            throw new IllegalStateException("Connection lost before commit");
+        }));
+
+        Book after = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(1, after.getAvailableCopies());
+        assertTrue(after.isAvailable());
+        assertTrue(borrowRepository.findByBookId(book.getId()).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE book_id = ?",
+                Integer.class, book.getId()));
+        // The next reader gets the copy
+        borrowService.borrowBook("interrupted", book.getId(), 7);
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+    }
+}
@@ -0,0 +1,96 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lib_management.LIB.dto.CatalogChange;
+import com.lib_management.LIB.dto.CatalogChanges;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+
+class CatalogChangeLogTest {
+
+    private static final long START = 1000;
+
+    private static final String EPOCH = "epoch";
+
+    private final CatalogChangeLog log = new CatalogChangeLog(EPOCH, START, 4);
+    private long version = START;
+
+    @Test
+    void changesAreMergedPerBookInVersionOrder() {
+        Book a = book(1, "A", true);
+        Book b = book(2, "B", true);
+        change(BookChangedEvent.added(a));
+        change(BookChangedEvent.added(b));
+        long synced = version;
+        change(BookChangedEvent.updated(a, a.toBuilder().available(false).build()));
+        change(BookChangedEvent.updated(b, b.toBuilder().title("B2").build()));
+        change(BookChangedEvent.updated(b.toBuilder().title("B2").build(), b.toBuilder().title("B2").available(false).build()));
+
+        CatalogChanges delta = log.changesSince(token(synced)).orElseThrow();
+        assertEquals(token(version), delta.version());
+        List<CatalogChange> changes = delta.changes();
+        assertEquals(2, changes.size());
+
+        // Only the flag changed for A, so only the flag is sent
+        assertEquals(CatalogChange.Type.availability, changes.get(0).type());
+        assertEquals(1L, changes.get(0).id());
+        assertEquals(false, changes.get(0).available());
+        assertNull(changes.get(0).book());
+
+        // B was edited and then flipped: one full change with the latest state
+        assertEquals(CatalogChange.Type.book, changes.get(1).type());
+        assertEquals("B2", changes.get(1).book().getTitle());
+        assertEquals(false, changes.get(1).book().isAvailable());
+
+        assertTrue(log.changesSince(token(version)).orElseThrow().changes().isEmpty());
+    }
+
+    @Test
+    void versionsOutsideTheBufferNeedASnapshot() {
+        Book a = book(1, "A", true);
+        for (int i = 0; i < 6; i++) {
+            change(BookChangedEvent.updated(a, a.toBuilder().available(i % 2 == 0).build()));
+        }
+        // Capacity 4: the first two changes are gone, so only versions from START + 2 are covered
+        assertTrue(log.changesSince(token(START + 1)).isEmpty());
+        assertEquals(1, log.changesSince(token(START + 2)).orElseThrow().changes().size());
+        // A version this process never issued
+        assertTrue(log.changesSince(token(version + 1)).isEmpty());
+        // A covered counter from before a restart, when the epoch was different, or no token at all
+        assertTrue(log.changesSince("other-" + (START + 3)).isEmpty());
+        assertTrue(log.changesSince(String.valueOf(START + 3)).isEmpty());
+        assertTrue(log.changesSince(EPOCH + "-x").isEmpty());
+    }
+
+    @Test
+    void deletionWins() {
+        Book a = book(1, "A", true);
+        change(BookChangedEvent.updated(a, a.toBuilder().available(false).build()));
+        change(BookChangedEvent.deleted(a));
+
+        List<CatalogChange> changes = log.changesSince(token(START)).orElseThrow().changes();
+        assertEquals(1, changes.size());
+        assertEquals(CatalogChange.Type.deleted, changes.get(0).type());
+    }
+
+    private static String token(long version) {
+        return CatalogVersion.token(EPOCH, version);
+    }
+
+    private void change(BookChangedEvent event) {
+        log.onCatalogChanged(new CatalogChangedEvent(++version, event));
+    }
+
+    private static Book book(long id, String title, boolean available) {
+        return Book.builder().id(id).title(title).author("Author").category("Fiction")
+                .rentPerDay(1.0).available(available).build();
+    }
+}
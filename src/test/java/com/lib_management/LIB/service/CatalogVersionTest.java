@@ -0,0 +1,67 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+import com.lib_management.LIB.event.CatalogChangedEvent;
+
+class CatalogVersionTest {
+
+    private final List<CatalogChangedEvent> published = new ArrayList<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private final CatalogVersion catalogVersion = new CatalogVersion(
+            event -> published.add((CatalogChangedEvent) event), Duration.ofMinutes(1), nanos::get);
+
+    @Test
+    void changesDeliveredOutOfCommitOrderAreDropped() {
+        Book added = book(1, 0L, 2);
+        Book borrowed = book(1, 1L, 1);
+        Book borrowedAgain = book(1, 2L, 0);
+
+        catalogVersion.onBookChanged(BookChangedEvent.added(added));
+        // The second borrow's thread got past its commit first
+        catalogVersion.onBookChanged(BookChangedEvent.updated(borrowed, borrowedAgain));
+        catalogVersion.onBookChanged(BookChangedEvent.updated(added, borrowed));
+        // Another book is not held back by the first one's versions
+        catalogVersion.onBookChanged(BookChangedEvent.added(book(2, 0L, 1)));
+
+        assertEquals(List.of(1L, 2L, 3L), published.stream().map(CatalogChangedEvent::version).toList());
+        assertEquals(borrowedAgain, published.get(1).change().current());
+        assertEquals(3, catalogVersion.current());
+    }
+
+    @Test
+    void nothingIsAppliedToABookAfterItsDelete() {
+        Book book = book(1, 3L, 1);
+        catalogVersion.onBookChanged(BookChangedEvent.deleted(book));
+        catalogVersion.onBookChanged(BookChangedEvent.updated(book, book(1, 4L, 0)));
+        catalogVersion.onBookChanged(BookChangedEvent.deleted(book));
+
+        assertEquals(1, published.size());
+        assertEquals(BookChangedEvent.ChangeType.DELETED, published.get(0).change().type());
+    }
+
+    @Test
+    void booksAreForgottenAfterTheReorderWindow() {
+        Book book = book(1, 3L, 1);
+        catalogVersion.onBookChanged(BookChangedEvent.deleted(book));
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        catalogVersion.onBookChanged(BookChangedEvent.updated(book, book(1, 4L, 0)));
+
+        assertEquals(2, published.size());
+    }
+
+    private static Book book(long id, Long version, int availableCopies) {
+        return Book.builder().id(id).title("Title " + id).author("Author").category("Fiction").rentPerDay(1.0)
+                .totalCopies(2).availableCopies(availableCopies).available(availableCopies > 0).version(version)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.lib_management.LIB.dto.CategoryFacet;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.event.BookChangedEvent;
+
+class CategoryFacetsTest {
+
+    // Never loaded from the repository here; every count comes from events
+    private final CategoryFacets facets = new CategoryFacets(null);
+
+    @Test
+    void countsFollowAddsBorrowsMovesAndDeletes() {
+        Book a = book(1, "Fiction", true);
+        Book b = book(2, " fiction ", true);
+        Book c = book(3, "History", true);
+        facets.apply(BookChangedEvent.added(a));
+        facets.apply(BookChangedEvent.added(b));
+        facets.apply(BookChangedEvent.added(c));
+        assertEquals(List.of(new CategoryFacet("Fiction", 2, 2), new CategoryFacet("History", 1, 1)), facets.facets());
+
+        // Borrowed
+        facets.apply(BookChangedEvent.updated(a, a.toBuilder().available(false).build()));
+        assertEquals(new CategoryFacet("Fiction", 2, 1), facets.facets().get(0));
+
+        // Moved while borrowed, then returned
+        Book moved = a.toBuilder().category("History").available(false).build();
+        facets.apply(BookChangedEvent.updated(a, moved));
+        facets.apply(BookChangedEvent.updated(moved, moved.toBuilder().available(true).build()));
+        assertEquals(List.of(new CategoryFacet("Fiction", 1, 1), new CategoryFacet("History", 2, 2)), facets.facets());
+
+        // A category disappears with its last book
+        facets.apply(BookChangedEvent.deleted(b));
+        assertEquals(List.of(new CategoryFacet("History", 2, 2)), facets.facets());
+    }
+
+    @Test
+    void repeatedEventsAreNotCountedTwice() {
+        Book a = book(1, "Fiction", true);
+        facets.apply(BookChangedEvent.added(a));
+        facets.apply(BookChangedEvent.updated(a, a));
+        facets.apply(BookChangedEvent.deleted(a));
+        facets.apply(BookChangedEvent.deleted(a));
+        assertEquals(List.of(), facets.facets());
+    }
+
+    @Test
+    void searchResultsAreCountedTheSameWay() {
+        assertEquals(List.of(new CategoryFacet("Fiction", 2, 1), new CategoryFacet("History", 1, 0)),
+                CategoryFacets.of(List.of(book(1, "Fiction", true), book(2, "FICTION", false), book(3, "History", false))));
+    }
+
+    private static Book book(long id, String category, boolean available) {
+        return Book.builder().id(id).title("Title " + id).author("Author").category(category)
+                .rentPerDay(1.0).available(available).build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.event.BorrowAuditEvent;
+import com.lib_management.LIB.event.BorrowAuditListener;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.UserRepository;
+
+@SpringBootTest(properties = {
+        // Dispatches are triggered by the test; small batches so one drain takes several
+        "library.audit.dispatch-interval=1h",
+        "library.audit.batch-size=2"
+})
+@ActiveProfiles("h2")
+class OutboxDispatcherTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void borrowEventsReachTheAuditTrailOnceAndListenersAtLeastOnce() {
+        User user = userRepository.save(User.builder()
+                .username("audited").email("audited@example.com").password("x").role(Role.USER).build());
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            bookIds.add(bookRepository.save(Book.builder()
+                    .title("Audited " + i).author("Author").category("Fiction")
+                    .rentPerDay(1.0).available(true).build()).getId());
+        }
+
+        BorrowView single = borrowService.borrowBook(user.getUsername(), bookIds.get(0), 7);
+        List<BorrowView> cart = borrowService.borrowBooks(user.getUsername(), bookIds.subList(1, 3), 7);
+        borrowService.returnBook(single.id());
+        borrowService.DeleteBorrow(cart.get(0).id());
+        assertEquals(5, count("outbox_events"));
+        assertEquals(0, count("borrow_audit"));
+
+        // A failing listener rolls the batch back: nothing is recorded and nothing leaves the outbox
+        listener.failures.set(1);
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(5, count("outbox_events"));
+        assertEquals(0, count("borrow_audit"));
+
+        assertEquals(5, dispatcher.dispatch());
+        assertEquals(0, count("outbox_events"));
+        assertEquals(List.of("BORROWED", "BORROWED", "BORROWED", "RETURNED", "DELETED"),
+                jdbcTemplate.queryForList("SELECT type FROM borrow_audit ORDER BY event_id", String.class));
+        assertEquals(List.of(single.id(), cart.get(0).id(), cart.get(1).id(), single.id(), cart.get(0).id()),
+                jdbcTemplate.queryForList("SELECT borrow_id FROM borrow_audit ORDER BY event_id", Long.class));
+
+        // The failed first batch was seen once before it was rolled back and again on redelivery
+        assertEquals(7, listener.received.size());
+        assertEquals(5, listener.received.stream().map(BorrowAuditEvent::id).distinct().count());
+        assertEquals(0, dispatcher.dispatch());
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    static class RecordingListener implements BorrowAuditListener {
+
+        final AtomicInteger failures = new AtomicInteger();
+        final List<BorrowAuditEvent> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onEvents(List<BorrowAuditEvent> events) {
+            received.addAll(events);
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("Listener unavailable");
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Listeners {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+}
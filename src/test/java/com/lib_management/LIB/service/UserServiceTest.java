@@ -0,0 +1,83 @@
+package com.lib_management.LIB.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.lib_management.LIB.Enum.Role;
+import com.lib_management.LIB.dto.BorrowView;
+import com.lib_management.LIB.entity.Book;
+import com.lib_management.LIB.entity.User;
+import com.lib_management.LIB.repository.BookRepository;
+import com.lib_management.LIB.repository.UserRepository;
+
+// Outbox rows stay put while the test looks at them
+@SpringBootTest(properties = "library.audit.dispatch-interval=1h")
+@ActiveProfiles("h2")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deletingAUserReturnsHeldCopiesAndAuditsEveryBorrow() {
+        User user = userRepository.save(User.builder()
+                .username("leaving").email("leaving@example.com").password("x").role(Role.USER).build());
+        Book popular = bookRepository.save(Book.builder().title("Leaving popular").author("Author")
+                .category("Fiction").rentPerDay(1.0).available(true).totalCopies(3).availableCopies(3).build());
+        Book single = bookRepository.save(Book.builder().title("Leaving single").author("Author")
+                .category("Fiction").rentPerDay(1.0).available(true).build());
+
+        BorrowView first = borrowService.borrowBook("leaving", popular.getId(), 7);
+        BorrowView second = borrowService.borrowBook("leaving", popular.getId(), 7);
+        BorrowView returned = borrowService.borrowBook("leaving", single.getId(), 7);
+        borrowService.returnBook(returned.id());
+        BorrowView held = borrowService.borrowBook("leaving", single.getId(), 7);
+        assertEquals(1, bookRepository.findById(popular.getId()).orElseThrow().getAvailableCopies());
+        assertEquals(0, bookRepository.findById(single.getId()).orElseThrow().getAvailableCopies());
+
+        userService.deleteUser(user.getId());
+
+        Book popularAfter = bookRepository.findById(popular.getId()).orElseThrow();
+        Book singleAfter = bookRepository.findById(single.getId()).orElseThrow();
+        assertEquals(3, popularAfter.getAvailableCopies());
+        assertEquals(1, singleAfter.getAvailableCopies());
+        assertTrue(singleAfter.isAvailable());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow WHERE user_id = ?", Integer.class,
+                user.getId()));
+        List<Long> deleted = jdbcTemplate.queryForList(
+                "SELECT borrow_id FROM outbox_events WHERE type = 'DELETED' AND user_id = ? ORDER BY borrow_id",
+                Long.class, user.getId());
+        assertEquals(List.of(first.id(), second.id(), returned.id(), held.id()), deleted);
+        // The reserved ids do not collide with the ones handed out next
+        BorrowView later = borrowService.borrowBook(otherReader(), popular.getId(), 7);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE borrow_id = ?", Integer.class, later.id()));
+    }
+
+    private String otherReader() {
+        return userRepository.save(User.builder()
+                .username("staying").email("staying@example.com").password("x").role(Role.USER).build()).getUsername();
+    }
+}
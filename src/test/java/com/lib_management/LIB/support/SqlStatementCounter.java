@@ -0,0 +1,110 @@
+package com.lib_management.LIB.support;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Counts the JDBC statements the application executes through its DataSource, whatever issues
+ * them: Hibernate, Spring Data or JdbcTemplate. Wraps the DataSource bean, so add it to a test
+ * context with {@code @Import(SqlStatementCounter.class)}. Id block reservations go through the
+ * allocator's own connection and are not counted; they happen once per block, not per request.
+ *
+ * A JDBC batch counts once, as it is one round trip. The count is global rather than per thread so
+ * that work finishing on another thread (streamed exports) is included; tests using it must not
+ * run requests concurrently. The SQL and bound parameters of each execution are kept as well.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    public record ExecutedStatement(String sql, List<Object> parameters) {
+    }
+
+    private final AtomicInteger executed = new AtomicInteger();
+    private final List<ExecutedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return wrap(dataSource, DataSource.class, (method, args, result) -> result instanceof Connection connection
+                    ? wrap(connection, Connection.class, this::wrapStatement)
+                    : result);
+        }
+        return bean;
+    }
+
+    public void reset() {
+        executed.set(0);
+        statements.clear();
+    }
+
+    public int count() {
+        return executed.get();
+    }
+
+    public List<ExecutedStatement> statements() {
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    private Object wrapStatement(Method method, Object[] args, Object result) {
+        if (!(result instanceof Statement statement)) {
+            return result;
+        }
+        String preparedSql = args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+        Map<Integer, Object> parameters = new TreeMap<>();
+        Class<?> type = method.getReturnType().isInterface() ? method.getReturnType() : Statement.class;
+        return wrap(statement, type, (statementMethod, statementArgs, value) -> value, (statementMethod, statementArgs) -> {
+            String name = statementMethod.getName();
+            if (name.startsWith("set") && statementArgs != null && statementArgs.length >= 2
+                    && statementArgs[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : statementArgs[1]);
+            } else if (name.startsWith("execute")) {
+                executed.incrementAndGet();
+                String sql = preparedSql != null ? preparedSql
+                        : statementArgs != null && statementArgs.length > 0 && statementArgs[0] instanceof String s ? s : null;
+                if (sql != null) {
+                    statements.add(new ExecutedStatement(sql, Collections.unmodifiableList(new ArrayList<>(parameters.values()))));
+                }
+            }
+        });
+    }
+
+    private <T> T wrap(T target, Class<?> type, ResultWrapper resultWrapper) {
+        return wrap(target, type, resultWrapper, (method, args) -> { });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T wrap(T target, Class<?> type, ResultWrapper resultWrapper, CallListener listener) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            listener.beforeCall(method, args);
+            try {
+                return resultWrapper.wrap(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+        Object wrap(Method method, Object[] args, Object result);
+    }
+
+    @FunctionalInterface
+    private interface CallListener {
+        void beforeCall(Method method, Object[] args);
+    }
+}
@@ -0,0 +1,75 @@
+package com.lib_management.LIB.support;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Asserts how many SQL statements an endpoint may execute per request.
+ *
+ * Each request runs with empty caches, so the budget covers the cold path, and runs twice: once
+ * on the current data and once after {@code growData} has added more rows than any budget allows.
+ * An endpoint whose statement count follows the data (an N+1) fails the second run.
+ */
+public class StatementBudgets {
+
+    private final MockMvc mockMvc;
+    private final SqlStatementCounter counter;
+    private final CacheManager cacheManager;
+    private final Runnable growData;
+
+    public StatementBudgets(MockMvc mockMvc, SqlStatementCounter counter, CacheManager cacheManager,
+                            Runnable growData) {
+        this.mockMvc = mockMvc;
+        this.counter = counter;
+        this.cacheManager = cacheManager;
+        this.growData = growData;
+    }
+
+    /**
+     * {@code request} is called once per run, so requests that consume their target (delete, return)
+     * can create a fresh one each time.
+     */
+    public void assertWithin(int budget, Callable<RequestBuilder> request) throws Exception {
+        String first = check(budget, request.call());
+        growData.run();
+        String second = check(budget, request.call());
+        assertTrue(first == null && second == null, first != null ? first : second);
+    }
+
+    // Returns a failure message, or null when the request succeeded within budget
+    private String check(int budget, RequestBuilder request) throws Exception {
+        int executed = measure(request);
+        return executed <= budget ? null : describe(request) + " executed " + executed + " statements, budget is " + budget;
+    }
+
+    /**
+     * Executes one request with empty caches, including the asynchronous part of streamed
+     * responses, and returns how many statements it ran. Fails unless the response is a 2xx.
+     */
+    public int measure(RequestBuilder request) throws Exception {
+        for (String name : cacheManager.getCacheNames()) {
+            cacheManager.getCache(name).clear();
+        }
+        counter.reset();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        int status = result.getResponse().getStatus();
+        assertTrue(status >= 200 && status < 300, describe(request) + " returned " + status + ": "
+                + result.getResponse().getContentAsString());
+        return counter.count();
+    }
+
+    private static String describe(RequestBuilder request) {
+        var servletRequest = request.buildRequest(null);
+        return servletRequest.getMethod() + " " + servletRequest.getRequestURI();
+    }
+}